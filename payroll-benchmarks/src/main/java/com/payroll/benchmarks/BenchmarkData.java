@@ -0,0 +1,87 @@
+package com.payroll.benchmarks;
+
+import com.payroll.common.dto.Money;
+import com.payroll.common.dto.PayrollData;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Deterministic synthetic payroll data, shaped like the files the producer picks up
+public final class BenchmarkData {
+    
+    public static final String CSV_HEADER = "employeeId,firstName,lastName,email,department,position,baseSalary,allowances,deductions";
+    
+    private static final String[] DEPARTMENTS = {"Engineering", "Finance", "HR", "Marketing", "Operations", "Sales"};
+    private static final String[] POSITIONS = {"Staff", "Senior Staff", "Lead", "Manager", "Director"};
+    private static final String[] FIRST_NAMES = {"Andi", "Budi", "Citra", "Dewi", "Eko", "Fitri", "Gilang", "Hana"};
+    private static final String[] LAST_NAMES = {"Pratama", "Santoso", "Wijaya", "Lestari", "Saputra", "Kusuma"};
+    
+    private BenchmarkData() {
+    }
+    
+    public static String[] csvRow(Random random, int index) {
+        String firstName = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+        String lastName = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+        return new String[] {
+                String.format("EMP%06d", index),
+                firstName,
+                lastName,
+                (firstName + "." + lastName + index + "@example.com").toLowerCase(),
+                DEPARTMENTS[random.nextInt(DEPARTMENTS.length)],
+                POSITIONS[random.nextInt(POSITIONS.length)],
+                amount(random, 5_000_000, 50_000_000),
+                amount(random, 0, 5_000_000),
+                amount(random, 0, 2_000_000)
+        };
+    }
+    
+    public static Path writeCsv(Path directory, int rows, long seed) throws IOException {
+        Path file = directory.resolve("payroll_" + rows + ".csv");
+        Random random = new Random(seed);
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write(CSV_HEADER);
+            writer.newLine();
+            for (int i = 1; i <= rows; i++) {
+                writer.write(String.join(",", csvRow(random, i)));
+                writer.newLine();
+            }
+        }
+        return file;
+    }
+    
+    public static List<PayrollData> payrollData(int count, long seed) {
+        Random random = new Random(seed);
+        List<PayrollData> records = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            String[] row = csvRow(random, i);
+            Money baseSalary = Money.parse(row[6]);
+            Money allowances = Money.parse(row[7]);
+            Money deductions = Money.parse(row[8]);
+            records.add(PayrollData.builder()
+                    .employeeId(row[0])
+                    .firstName(row[1])
+                    .lastName(row[2])
+                    .email(row[3])
+                    .department(row[4])
+                    .position(row[5])
+                    .baseSalary(baseSalary)
+                    .allowances(allowances)
+                    .deductions(deductions)
+                    .netSalary(baseSalary.plus(allowances).minus(deductions))
+                    .fileName("payroll_benchmark.csv")
+                    .lineNumber(i + 1)
+                    .build());
+        }
+        return records;
+    }
+    
+    private static String amount(Random random, int minCents, int maxCents) {
+        long cents = minCents + random.nextInt(maxCents - minCents);
+        return cents / 100 + "." + String.format("%02d", cents % 100);
+    }
+}
@@ -0,0 +1,63 @@
+package com.payroll.benchmarks;
+
+import com.payroll.producer.service.CsvReaderService;
+import com.payroll.producer.service.ParallelCsvParser;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.util.FileSystemUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// CsvReaderService.streamCsvFile over generated files, in both parse modes
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvParsingBenchmark {
+    
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+    
+    @Param({"sequential", "parallel"})
+    public String parseMode;
+    
+    private AnnotationConfigApplicationContext context;
+    private CsvReaderService csvReaderService;
+    private Path directory;
+    private Path csvFile;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("payroll-bench-csv");
+        csvFile = BenchmarkData.writeCsv(directory, rows, 42);
+        
+        context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", Map.of(
+                "payroll.csv.parse-mode", parseMode,
+                "payroll.csv.parallel.chunk-size-mb", 4)));
+        context.register(ParallelCsvParser.class, CsvReaderService.class);
+        context.registerBean(MeterRegistry.class, SimpleMeterRegistry::new);
+        context.refresh();
+        csvReaderService = context.getBean(CsvReaderService.class);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        context.close();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+    
+    @Benchmark
+    public int parseFile(Blackhole blackhole) throws Exception {
+        return csvReaderService.streamCsvFile(csvFile, blackhole::consume);
+    }
+}
@@ -0,0 +1,45 @@
+package com.payroll.benchmarks;
+
+import com.payroll.common.dto.Money;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Parsing three CSV amounts and netting them (base + allowances - deductions), as CsvReaderService does per row.
+// The BigDecimal variant is the pre-Money baseline.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NetSalaryBenchmark {
+    
+    private static final int ROWS = 1024;
+    
+    private final String[][] amounts = new String[ROWS][];
+    private int next;
+    
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < ROWS; i++) {
+            String[] row = BenchmarkData.csvRow(random, i);
+            amounts[i] = new String[] {row[6], row[7], row[8]};
+        }
+    }
+    
+    @Benchmark
+    public Money money() {
+        String[] row = amounts[next++ & (ROWS - 1)];
+        return Money.parse(row[0]).plus(Money.parse(row[1])).minus(Money.parse(row[2]));
+    }
+    
+    @Benchmark
+    public BigDecimal bigDecimal() {
+        String[] row = amounts[next++ & (ROWS - 1)];
+        return new BigDecimal(row[0].trim()).add(new BigDecimal(row[1].trim())).subtract(new BigDecimal(row[2].trim()));
+    }
+}
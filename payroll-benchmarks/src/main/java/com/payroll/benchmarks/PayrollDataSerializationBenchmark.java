@@ -0,0 +1,67 @@
+package com.payroll.benchmarks;
+
+import com.payroll.common.dto.PayrollData;
+import com.payroll.common.kafka.PayrollDataDeserializer;
+import com.payroll.common.kafka.PayrollDataSerializer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// The Kafka value serializer (producer) and deserializer (consumer) exactly as configured in application.yml,
+// for each wire format
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PayrollDataSerializationBenchmark {
+    
+    private static final String TOPIC = "payroll-data-topic";
+    private static final int RECORDS = 1024;
+    
+    @Param({"json", "binary"})
+    public String wireFormat;
+    
+    private PayrollDataSerializer serializer;
+    private PayrollDataDeserializer deserializer;
+    private List<PayrollData> records;
+    private byte[][] messages;
+    private int next;
+    
+    @Setup
+    public void setUp() {
+        serializer = new PayrollDataSerializer();
+        serializer.configure(Map.of(PayrollDataSerializer.WIRE_FORMAT_CONFIG, wireFormat), false);
+        
+        deserializer = new PayrollDataDeserializer();
+        deserializer.configure(Map.of(
+                "spring.json.trusted.packages", "*",
+                "spring.json.use.type.headers", false,
+                "spring.json.value.default.type", com.payroll.common.dto.PayrollData.class.getName()), false);
+        
+        records = BenchmarkData.payrollData(RECORDS, 42);
+        messages = new byte[RECORDS][];
+        for (int i = 0; i < RECORDS; i++) {
+            messages[i] = serializer.serialize(TOPIC, records.get(i));
+        }
+    }
+    
+    @TearDown
+    public void tearDown() {
+        serializer.close();
+        deserializer.close();
+    }
+    
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(TOPIC, records.get(next++ & (RECORDS - 1)));
+    }
+    
+    @Benchmark
+    public Object deserialize() {
+        return deserializer.deserialize(TOPIC, messages[next++ & (RECORDS - 1)]);
+    }
+}
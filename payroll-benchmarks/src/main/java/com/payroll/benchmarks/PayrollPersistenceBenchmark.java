@@ -0,0 +1,97 @@
+package com.payroll.benchmarks;
+
+import com.payroll.common.dto.Money;
+import com.payroll.common.dto.PayrollData;
+import com.payroll.consumer.PayrollConsumerApplication;
+import com.payroll.consumer.service.PayrollService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// PayrollService write paths against H2 in MySQL mode, which also exercises the batch upsert SQL.
+// One operation persists BATCH_SIZE records: one transaction per record (single) or one per batch (batch).
+// Every operation changes the salaries, so employee updates are never skipped by the fingerprint check.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PayrollPersistenceBenchmark {
+    
+    private static final int BATCH_SIZE = 500;
+    private static final int EMPLOYEES = 5_000;
+    
+    @Param({"single", "batch"})
+    public String mode;
+    
+    private ConfigurableApplicationContext context;
+    private PayrollService payrollService;
+    private List<PayrollData> template;
+    private int round;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(PayrollConsumerApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        // Neither service's application.yml: everything the consumer needs is set here
+                        "spring.config.name=payroll-benchmarks",
+                        "spring.main.banner-mode=off",
+                        "spring.datasource.url=jdbc:h2:mem:payroll_bench;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "spring.datasource.driver-class-name=org.h2.Driver",
+                        "spring.datasource.username=sa",
+                        "spring.datasource.password=",
+                        "spring.flyway.enabled=false", // the migrations partition payroll_records, which H2 cannot
+                        "spring.jpa.hibernate.ddl-auto=create",
+                        "spring.jpa.open-in-view=false",
+                        "spring.cache.type=caffeine",
+                        "spring.cache.cache-names=employees,employeePayrollRecords",
+                        "spring.kafka.topic.payroll-data=payroll-data-topic",
+                        "spring.kafka.listener.auto-startup=false",
+                        "payroll.consumer.mode=none",
+                        "payroll.retry.enabled=false",
+                        "logging.level.root=WARN")
+                .run();
+        payrollService = context.getBean(PayrollService.class);
+        
+        template = BenchmarkData.payrollData(EMPLOYEES, 42);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void persist() {
+        List<PayrollData> batch = nextBatch();
+        if ("batch".equals(mode)) {
+            payrollService.processPayrollBatch(batch);
+        } else {
+            for (PayrollData payrollData : batch) {
+                payrollService.processPayrollData(payrollData);
+            }
+        }
+    }
+    
+    // Cycles through the employees; the first pass inserts, later passes update with a raised base salary
+    private List<PayrollData> nextBatch() {
+        int offset = (round * BATCH_SIZE) % EMPLOYEES;
+        Money raise = Money.ofCents(++round);
+        List<PayrollData> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            PayrollData data = template.get(offset + i);
+            data.setBaseSalary(data.getBaseSalary().plus(raise));
+            data.setNetSalary(data.getBaseSalary().plus(data.getAllowances()).minus(data.getDeductions()));
+            batch.add(data);
+        }
+        return batch;
+    }
+}
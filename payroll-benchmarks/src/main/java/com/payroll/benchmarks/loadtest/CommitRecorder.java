@@ -0,0 +1,55 @@
+package com.payroll.benchmarks.loadtest;
+
+import com.payroll.common.dto.PayrollData;
+import com.payroll.consumer.service.PayrollWrittenEvent;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Registered in the consumer context; takes the end-to-end latency of every committed record as the time
+// from its file being dropped into the producer's input directory to the commit of its consumer transaction
+public class CommitRecorder {
+    
+    private final Map<String, Long> droppedAtNanos = new ConcurrentHashMap<>();
+    private long[] latencyNanos = new long[1 << 16];
+    private int committed;
+    private long lastCommitNanos;
+    
+    public void fileDropped(String fileName, long nanos) {
+        droppedAtNanos.put(fileName, nanos);
+    }
+    
+    @TransactionalEventListener
+    public void onCommitted(PayrollWrittenEvent event) {
+        long now = System.nanoTime();
+        synchronized (this) {
+            for (PayrollData payrollData : event.records()) {
+                Long droppedAt = droppedAtNanos.get(payrollData.getFileName());
+                if (droppedAt == null) {
+                    continue;
+                }
+                if (committed == latencyNanos.length) {
+                    latencyNanos = Arrays.copyOf(latencyNanos, committed * 2);
+                }
+                latencyNanos[committed++] = now - droppedAt;
+            }
+            lastCommitNanos = now;
+        }
+    }
+    
+    public synchronized int committed() {
+        return committed;
+    }
+    
+    public synchronized long lastCommitNanos() {
+        return lastCommitNanos;
+    }
+    
+    public synchronized long[] sortedLatencyNanos() {
+        long[] sorted = Arrays.copyOf(latencyNanos, committed);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+}
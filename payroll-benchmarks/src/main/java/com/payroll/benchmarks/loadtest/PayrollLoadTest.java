@@ -0,0 +1,378 @@
+package com.payroll.benchmarks.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.payroll.consumer.PayrollConsumerApplication;
+import com.payroll.producer.PayrollProducerApplication;
+import com.sun.management.GarbageCollectionNotificationInfo;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// End-to-end load test on one box: an embedded KRaft broker, the consumer on H2 (MySQL mode) and the producer
+// watching a temp directory all run in this JVM. Synthetic files are generated up front, then dropped into the
+// input directory one every interval-ms, and the run ends once every valid row has been committed.
+// Heap and GC figures therefore cover both services plus the broker.
+//
+//   mvn -pl payroll-benchmarks exec:exec -Ploadtest -Dloadtest.args="--rows=1000000 --files=20 --mode=batch"
+public class PayrollLoadTest {
+    
+    private static final String TOPIC = "payroll-data-topic";
+    private static final String GROUP_ID = "payroll-loadtest-group";
+    private static final String MARKER_SUFFIX = ".done";
+    private static final long SAMPLE_INTERVAL_MS = 1000;
+    
+    private final Map<String, String> options;
+    private final CommitRecorder recorder = new CommitRecorder();
+    private final List<Map<String, Object>> samples = new ArrayList<>();
+    private final Map<String, long[]> gcPauses = new ConcurrentHashMap<>();
+    
+    private PayrollLoadTest(Map<String, String> options) {
+        this.options = options;
+    }
+    
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        options.put("rows", "100000");
+        options.put("files", "10");
+        options.put("interval-ms", "1000");
+        options.put("mode", "batch");
+        // Parallel mode only; H2 spins on the hot rollup rows with many waiters, so keep it low here
+        options.put("max-concurrency", "2");
+        options.put("max-lag", "200000");
+        options.put("wire-format", "json");
+        options.put("envelope", "false");
+        options.put("parse-mode", "sequential");
+        options.put("partitions", "3");
+        options.put("repeat-ratio", "0.2");
+        options.put("malformed-ratio", "0.001");
+        options.put("seed", "42");
+        options.put("idle-timeout-s", "120");
+        options.put("report", "target/loadtest-report.json");
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0 || !options.containsKey(arg.substring(2, eq))) {
+                System.err.println("Unknown option " + arg + ", expected one of --<option>=<value> for " + options.keySet());
+                System.exit(2);
+            }
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        
+        new PayrollLoadTest(options).run();
+        System.exit(0);
+    }
+    
+    private void run() throws Exception {
+        Path workDir = Files.createTempDirectory("payroll-loadtest");
+        Path stagingDir = Files.createDirectories(workDir.resolve("staging"));
+        Path inputDir = Files.createDirectories(workDir.resolve("input"));
+        
+        // Generated before the clock starts, so generation cost is not part of the figures
+        int files = intOption("files");
+        int rows = intOption("rows");
+        SyntheticPayrollGenerator generator = new SyntheticPayrollGenerator(
+                Long.parseLong(options.get("seed")),
+                Double.parseDouble(options.get("repeat-ratio")),
+                Double.parseDouble(options.get("malformed-ratio")));
+        List<SyntheticPayrollGenerator.Summary> inputs = new ArrayList<>();
+        for (int i = 0; i < files; i++) {
+            int fileRows = rows / files + (i < rows % files ? 1 : 0);
+            inputs.add(generator.write(stagingDir.resolve(String.format("payroll_loadtest_%03d.csv", i + 1)), fileRows));
+        }
+        int expected = inputs.stream().mapToInt(SyntheticPayrollGenerator.Summary::validRows).sum();
+        log("Generated %d files with %d rows (%d valid) in %s", files, rows, expected, workDir);
+        
+        EmbeddedKafkaKraftBroker broker = new EmbeddedKafkaKraftBroker(1, intOption("partitions"), TOPIC);
+        broker.afterPropertiesSet();
+        ConfigurableApplicationContext consumer = startConsumer(broker.getBrokersAsString());
+        ConfigurableApplicationContext producer = startProducer(broker.getBrokersAsString(), workDir);
+        log("Broker at %s, consumer mode %s, wire format %s", broker.getBrokersAsString(),
+                options.get("mode"), options.get("wire-format"));
+        
+        watchGcPauses();
+        Map<String, long[]> gcBefore = gcTotals();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long peakHeapUsed = 0;
+        boolean complete;
+        
+        try (AdminClient admin = AdminClient.create(Map.of(
+                AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString()))) {
+            List<TopicPartition> partitions = new ArrayList<>();
+            for (int p = 0; p < intOption("partitions"); p++) {
+                partitions.add(new TopicPartition(TOPIC, p));
+            }
+            
+            long intervalNanos = TimeUnit.MILLISECONDS.toNanos(Long.parseLong(options.get("interval-ms")));
+            long idleTimeoutNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(options.get("idle-timeout-s")));
+            long startNanos = System.nanoTime();
+            long nextSampleNanos = startNanos;
+            long lastProgressNanos = startNanos;
+            int lastCommitted = 0;
+            int dropped = 0;
+            
+            while (true) {
+                long now = System.nanoTime();
+                while (dropped < files && now - startNanos >= dropped * intervalNanos) {
+                    drop(inputs.get(dropped++).file(), inputDir);
+                }
+                
+                int committed = recorder.committed();
+                if (committed != lastCommitted) {
+                    lastCommitted = committed;
+                    lastProgressNanos = now;
+                }
+                complete = dropped == files && committed >= expected;
+                
+                if (now >= nextSampleNanos || complete) {
+                    long heapUsed = memory.getHeapMemoryUsage().getUsed();
+                    peakHeapUsed = Math.max(peakHeapUsed, heapUsed);
+                    Map<String, Object> sample = new LinkedHashMap<>();
+                    sample.put("elapsedMs", TimeUnit.NANOSECONDS.toMillis(now - startNanos));
+                    sample.put("filesDropped", dropped);
+                    sample.put("committed", committed);
+                    sample.put("lag", lag(admin, partitions));
+                    sample.put("heapUsedMb", heapUsed >> 20);
+                    samples.add(sample);
+                    log("t=%6.1fs  files %d/%d  committed %d/%d  lag %s  heap %d MB",
+                            (now - startNanos) / 1e9, dropped, files, committed, expected, sample.get("lag"), heapUsed >> 20);
+                    nextSampleNanos += TimeUnit.MILLISECONDS.toNanos(SAMPLE_INTERVAL_MS);
+                }
+                
+                if (complete || now - lastProgressNanos > idleTimeoutNanos) {
+                    break;
+                }
+                Thread.sleep(20);
+            }
+            
+            Map<String, Object> report = report(inputs, expected, complete, startNanos, peakHeapUsed, gcBefore);
+            Path reportFile = Paths.get(options.get("report"));
+            if (reportFile.getParent() != null) {
+                Files.createDirectories(reportFile.getParent());
+            }
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(reportFile.toFile(), report);
+            printSummary(report);
+            log("Report written to %s", reportFile.toAbsolutePath());
+        } finally {
+            producer.close();
+            consumer.close();
+            broker.destroy();
+        }
+    }
+    
+    private ConfigurableApplicationContext startConsumer(String bootstrapServers) {
+        return new SpringApplicationBuilder(PayrollConsumerApplication.class)
+                .web(WebApplicationType.NONE)
+                .initializers(context -> ((GenericApplicationContext) context)
+                        .registerBean(CommitRecorder.class, () -> recorder))
+                .properties(
+                        // Neither service's application.yml: both live on this classpath
+                        "spring.config.name=payroll-loadtest",
+                        "spring.application.name=payroll-consumer",
+                        "spring.main.banner-mode=off",
+                        "spring.datasource.url=jdbc:h2:mem:payroll_loadtest;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "spring.datasource.driver-class-name=org.h2.Driver",
+                        "spring.datasource.username=sa",
+                        "spring.datasource.password=",
+                        "spring.flyway.enabled=false", // the migrations partition payroll_records, which H2 cannot
+                        "spring.jpa.hibernate.ddl-auto=create",
+                        "spring.jpa.open-in-view=false",
+                        "spring.cache.type=caffeine",
+                        "spring.cache.cache-names=employees,employeePayrollRecords",
+                        "spring.cache.caffeine.spec=maximumSize=10000,expireAfterWrite=5m,recordStats",
+                        "spring.kafka.bootstrap-servers=" + bootstrapServers,
+                        "spring.kafka.topic.payroll-data=" + TOPIC,
+                        "spring.kafka.consumer.group-id=" + GROUP_ID,
+                        "spring.kafka.consumer.auto-offset-reset=earliest",
+                        "spring.kafka.consumer.key-deserializer=org.apache.kafka.common.serialization.StringDeserializer",
+                        "spring.kafka.consumer.value-deserializer=com.payroll.common.kafka.PayrollDataDeserializer",
+                        "spring.kafka.consumer.properties.spring.json.trusted.packages=*",
+                        "spring.kafka.consumer.properties.spring.json.use.type.headers=false",
+                        "spring.kafka.consumer.properties.spring.json.value.default.type=com.payroll.common.dto.PayrollData",
+                        "spring.kafka.producer.key-serializer=org.apache.kafka.common.serialization.StringSerializer",
+                        "spring.kafka.producer.value-serializer=org.apache.kafka.common.serialization.ByteArraySerializer",
+                        "payroll.consumer.mode=" + options.get("mode"),
+                        "payroll.consumer.parallel.max-concurrency=" + options.get("max-concurrency"),
+                        "logging.level.root=WARN")
+                .run();
+    }
+    
+    private ConfigurableApplicationContext startProducer(String bootstrapServers, Path workDir) {
+        return new SpringApplicationBuilder(PayrollProducerApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.config.name=payroll-loadtest",
+                        "spring.application.name=payroll-producer",
+                        "spring.main.banner-mode=off",
+                        "spring.flyway.enabled=false", // Flyway is on this classpath for the consumer only
+                        "spring.kafka.bootstrap-servers=" + bootstrapServers,
+                        "spring.kafka.topic.payroll-data=" + TOPIC,
+                        "spring.kafka.producer.key-serializer=org.apache.kafka.common.serialization.StringSerializer",
+                        "spring.kafka.producer.value-serializer=com.payroll.common.kafka.PayrollDataSerializer",
+                        "spring.kafka.producer.acks=all",
+                        "spring.kafka.producer.properties.enable.idempotence=true",
+                        "spring.kafka.producer.properties.linger.ms=100",
+                        "spring.kafka.producer.properties.spring.json.add.type.headers=false",
+                        "spring.kafka.producer.properties.payroll.wire-format=" + options.get("wire-format"),
+                        "payroll.csv.input-path=" + workDir.resolve("input"),
+                        "payroll.csv.processed-path=" + workDir.resolve("processed"),
+                        "payroll.csv.parse-mode=" + options.get("parse-mode"),
+                        "payroll.producer.envelope.enabled=" + options.get("envelope"),
+                        // Files are moved in whole, the marker makes the pickup immediate
+                        "payroll.ingestion.marker-suffix=" + MARKER_SUFFIX,
+                        "payroll.watcher.enabled=true",
+                        "payroll.scheduler.enabled=false",
+                        "payroll.throttle.enabled=true",
+                        "payroll.throttle.consumer-group=" + GROUP_ID,
+                        "payroll.throttle.max-lag=" + options.get("max-lag"),
+                        "payroll.throttle.check-interval-ms=1000",
+                        "logging.level.root=WARN")
+                .run();
+    }
+    
+    private void drop(Path stagedFile, Path inputDir) throws Exception {
+        Path target = inputDir.resolve(stagedFile.getFileName());
+        Files.move(stagedFile, target, StandardCopyOption.ATOMIC_MOVE);
+        recorder.fileDropped(target.getFileName().toString(), System.nanoTime());
+        Files.createFile(target.resolveSibling(target.getFileName() + MARKER_SUFFIX));
+    }
+    
+    // Records (or envelopes) produced but not yet committed by the consumer group
+    private static long lag(AdminClient admin, List<TopicPartition> partitions) throws Exception {
+        Map<TopicPartition, OffsetAndMetadata> committed = admin.listConsumerGroupOffsets(GROUP_ID)
+                .partitionsToOffsetAndMetadata().get();
+        Map<TopicPartition, OffsetSpec> latest = new HashMap<>();
+        partitions.forEach(partition -> latest.put(partition, OffsetSpec.latest()));
+        
+        long lag = 0;
+        for (var end : admin.listOffsets(latest).all().get().entrySet()) {
+            OffsetAndMetadata position = committed.get(end.getKey());
+            lag += end.getValue().offset() - (position == null ? 0 : position.offset());
+        }
+        return lag;
+    }
+    
+    private void watchGcPauses() {
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            ((NotificationEmitter) gc).addNotificationListener((notification, handback) -> {
+                if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                    return;
+                }
+                GarbageCollectionNotificationInfo info =
+                        GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+                gcPauses.merge(info.getGcName(), new long[] {info.getGcInfo().getDuration()},
+                        (max, pause) -> new long[] {Math.max(max[0], pause[0])});
+            }, null, null);
+        }
+    }
+    
+    private static Map<String, long[]> gcTotals() {
+        Map<String, long[]> totals = new LinkedHashMap<>();
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            totals.put(gc.getName(), new long[] {gc.getCollectionCount(), gc.getCollectionTime()});
+        }
+        return totals;
+    }
+    
+    private Map<String, Object> report(List<SyntheticPayrollGenerator.Summary> inputs, int expected, boolean complete,
+                                       long startNanos, long peakHeapUsed, Map<String, long[]> gcBefore) {
+        long[] latencies = recorder.sortedLatencyNanos();
+        long durationNanos = Math.max(1, recorder.lastCommitNanos() - startNanos);
+        
+        Map<String, Object> input = new LinkedHashMap<>();
+        input.put("files", inputs.size());
+        input.put("rows", inputs.stream().mapToInt(SyntheticPayrollGenerator.Summary::rows).sum());
+        input.put("validRows", expected);
+        input.put("malformedRows", inputs.stream().mapToInt(SyntheticPayrollGenerator.Summary::malformedRows).sum());
+        input.put("resubmittedRows", inputs.stream().mapToInt(SyntheticPayrollGenerator.Summary::resubmittedRows).sum());
+        
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("p50Ms", percentileMillis(latencies, 0.50));
+        latency.put("p90Ms", percentileMillis(latencies, 0.90));
+        latency.put("p99Ms", percentileMillis(latencies, 0.99));
+        latency.put("maxMs", percentileMillis(latencies, 1.0));
+        
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("complete", complete);
+        result.put("committed", latencies.length);
+        result.put("durationMs", TimeUnit.NANOSECONDS.toMillis(durationNanos));
+        result.put("throughputPerSec", Math.round(latencies.length * 1e9 / durationNanos));
+        result.put("latency", latency);
+        result.put("maxLag", samples.stream().mapToLong(sample -> (long) sample.get("lag")).max().orElse(0));
+        
+        Map<String, Object> gc = new LinkedHashMap<>();
+        gcTotals().forEach((name, after) -> {
+            long[] before = gcBefore.getOrDefault(name, new long[2]);
+            Map<String, Object> collector = new LinkedHashMap<>();
+            collector.put("count", after[0] - before[0]);
+            collector.put("timeMs", after[1] - before[1]);
+            collector.put("maxPauseMs", gcPauses.getOrDefault(name, new long[1])[0]);
+            gc.put(name, collector);
+        });
+        Map<String, Object> jvm = new LinkedHashMap<>();
+        jvm.put("heapPeakUsedMb", peakHeapUsed >> 20);
+        jvm.put("heapMaxMb", ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getMax() >> 20);
+        jvm.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        jvm.put("gc", gc);
+        
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("options", options);
+        report.put("input", input);
+        report.put("result", result);
+        report.put("jvm", jvm);
+        report.put("samples", samples);
+        return report;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static void printSummary(Map<String, Object> report) {
+        Map<String, Object> result = (Map<String, Object>) report.get("result");
+        Map<String, Object> latency = (Map<String, Object>) result.get("latency");
+        Map<String, Object> jvm = (Map<String, Object>) report.get("jvm");
+        log("%s: %s records committed in %s ms, %s records/s", (boolean) result.get("complete") ? "Complete" : "INCOMPLETE",
+                result.get("committed"), result.get("durationMs"), result.get("throughputPerSec"));
+        log("End-to-end latency (file drop to commit): p50 %s ms, p90 %s ms, p99 %s ms, max %s ms",
+                latency.get("p50Ms"), latency.get("p90Ms"), latency.get("p99Ms"), latency.get("maxMs"));
+        log("Max consumer lag %s, peak heap %s MB of %s MB, GC %s",
+                result.get("maxLag"), jvm.get("heapPeakUsedMb"), jvm.get("heapMaxMb"), jvm.get("gc"));
+    }
+    
+    private static long percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return TimeUnit.NANOSECONDS.toMillis(sorted[Math.max(0, index)]);
+    }
+    
+    private int intOption(String name) {
+        return Integer.parseInt(options.get(name));
+    }
+    
+    private static void log(String format, Object... args) {
+        System.out.println("[LOADTEST] " + String.format(format, args));
+    }
+}
@@ -0,0 +1,150 @@
+package com.payroll.benchmarks.loadtest;
+
+import com.payroll.benchmarks.BenchmarkData;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+
+// Payroll CSVs shaped like production drops rather than the uniform rows of BenchmarkData: department sizes
+// follow a Zipf curve, a share of the rows resubmit an employee already seen (in this file or an earlier one,
+// sometimes with corrected deductions) and a few lines are malformed and must be dropped by the producer.
+// Master data is derived from the employee number, so a resubmitted employee keeps its name and department.
+public class SyntheticPayrollGenerator {
+    
+    private static final String[] DEPARTMENTS = {
+            "Operations", "Sales", "Engineering", "Customer Support", "Finance", "Marketing",
+            "Logistics", "HR", "Legal", "Procurement", "Research", "Internal Audit"
+    };
+    private static final String[] POSITIONS = {"Staff", "Senior Staff", "Lead", "Manager", "Director"};
+    private static final String[] FIRST_NAMES = {"Andi", "Budi", "Citra", "Dewi", "Eko", "Fitri", "Gilang", "Hana",
+            "Indra", "Joko", "Kartika", "Lukman", "Maya", "Nanda", "Putri", "Rizki", "Sari", "Taufik", "Wulan", "Yusuf"};
+    private static final String[] LAST_NAMES = {"Pratama", "Santoso", "Wijaya", "Lestari", "Saputra", "Kusuma",
+            "Hidayat", "Nugroho", "Setiawan", "Rahmawati", "Siregar", "Halim"};
+    private static final double ZIPF_EXPONENT = 1.1;
+    
+    private final long seed;
+    private final double repeatRatio;
+    private final double malformedRatio;
+    private final Random random;
+    private final double[] departmentCdf;
+    private int employees;
+    
+    public record Summary(Path file, int rows, int validRows, int malformedRows, int resubmittedRows) {
+    }
+    
+    public SyntheticPayrollGenerator(long seed, double repeatRatio, double malformedRatio) {
+        this.seed = seed;
+        this.repeatRatio = repeatRatio;
+        this.malformedRatio = malformedRatio;
+        this.random = new Random(seed);
+        this.departmentCdf = zipfCdf(DEPARTMENTS.length);
+    }
+    
+    // Employee numbers continue across calls, so later files can resubmit employees of earlier ones
+    public Summary write(Path file, int rows) throws IOException {
+        int validRows = 0;
+        int malformedRows = 0;
+        int resubmittedRows = 0;
+        
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write(BenchmarkData.CSV_HEADER);
+            writer.newLine();
+            for (int i = 0; i < rows; i++) {
+                boolean resubmit = employees > 0 && random.nextDouble() < repeatRatio;
+                int employee = resubmit ? 1 + random.nextInt(employees) : ++employees;
+                String[] row = row(employee, resubmit);
+                
+                if (random.nextDouble() < malformedRatio) {
+                    writer.write(malformed(row));
+                    malformedRows++;
+                } else {
+                    writer.write(String.join(",", row));
+                    validRows++;
+                    if (resubmit) {
+                        resubmittedRows++;
+                    }
+                }
+                writer.newLine();
+            }
+        }
+        return new Summary(file, rows, validRows, malformedRows, resubmittedRows);
+    }
+    
+    private String[] row(int employee, boolean resubmit) {
+        Random master = new Random(seed * 1_000_003L + employee);
+        String firstName = FIRST_NAMES[master.nextInt(FIRST_NAMES.length)];
+        String lastName = LAST_NAMES[master.nextInt(LAST_NAMES.length)];
+        int position = Math.min(POSITIONS.length - 1, (int) (-Math.log(1 - master.nextDouble()) * 1.2));
+        long baseSalary = (5_000_000 + master.nextInt(15_000_000)) * (position + 1L);
+        long allowances = master.nextInt(3_000_000);
+        long deductions = master.nextInt(1_500_000);
+        if (resubmit && random.nextBoolean()) {
+            // Corrected resubmission
+            deductions += random.nextInt(100_000);
+        }
+        return new String[] {
+                String.format("EMP%07d", employee),
+                firstName,
+                lastName,
+                (firstName + "." + lastName + employee + "@example.com").toLowerCase(),
+                DEPARTMENTS[department(master.nextDouble())],
+                POSITIONS[position],
+                amount(baseSalary),
+                amount(allowances),
+                amount(deductions)
+        };
+    }
+    
+    // Kinds of broken lines seen in real uploads; each one makes CsvReaderService skip the row
+    private String malformed(String[] row) {
+        return switch (random.nextInt(3)) {
+            case 0 -> String.join(",", Arrays.copyOf(row, 6));
+            case 1 -> String.join(",", row[0], row[1], row[2], row[3], row[4], row[5], "N/A", row[7], row[8]);
+            default -> String.join(",", row[0], row[1], row[2], row[3], row[4], row[5], "9e99", row[7], row[8]);
+        };
+    }
+    
+    private int department(double u) {
+        for (int i = 0; i < departmentCdf.length; i++) {
+            if (u < departmentCdf[i]) {
+                return i;
+            }
+        }
+        return departmentCdf.length - 1;
+    }
+    
+    private static double[] zipfCdf(int n) {
+        double[] cdf = new double[n];
+        double total = 0;
+        for (int i = 0; i < n; i++) {
+            total += 1 / Math.pow(i + 1, ZIPF_EXPONENT);
+            cdf[i] = total;
+        }
+        for (int i = 0; i < n; i++) {
+            cdf[i] /= total;
+        }
+        return cdf;
+    }
+    
+    private static String amount(long cents) {
+        return cents / 100 + "." + String.format("%02d", cents % 100);
+    }
+    
+    // java ... SyntheticPayrollGenerator <output.csv> <rows> [repeatRatio] [malformedRatio] [seed]
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: SyntheticPayrollGenerator <output.csv> <rows> [repeatRatio] [malformedRatio] [seed]");
+            System.exit(2);
+        }
+        SyntheticPayrollGenerator generator = new SyntheticPayrollGenerator(
+                args.length > 4 ? Long.parseLong(args[4]) : 42,
+                args.length > 2 ? Double.parseDouble(args[2]) : 0.2,
+                args.length > 3 ? Double.parseDouble(args[3]) : 0.001);
+        System.out.println(generator.write(Paths.get(args[0]), Integer.parseInt(args[1])));
+    }
+}
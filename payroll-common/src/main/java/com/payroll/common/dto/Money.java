@@ -0,0 +1,197 @@
+package com.payroll.common.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.CharBuffer;
+
+// Fixed-point amount in cents, matching the DECIMAL(15, 2) salary columns: values are rounded
+// HALF_UP to two decimals on the way in, and anything beyond 15 digits is rejected with an
+// ArithmeticException instead of failing later in the database. Shared by producer and consumer.
+// JSON reads and writes it as a plain number (50000.00), so the wire format is the same as with BigDecimal.
+@JsonSerialize(using = Money.Serializer.class)
+@JsonDeserialize(using = Money.Deserializer.class)
+public final class Money implements Comparable<Money>, Serializable {
+    
+    public static final int SCALE = 2;
+    public static final long MAX_CENTS = 999_999_999_999_999L;
+    
+    public static final Money ZERO = new Money(0);
+    
+    private final long cents;
+    
+    private Money(long cents) {
+        this.cents = cents;
+    }
+    
+    public static Money ofCents(long cents) {
+        if (cents > MAX_CENTS || cents < -MAX_CENTS) {
+            throw new ArithmeticException("Amount out of range for DECIMAL(15, 2): " + cents + " cents");
+        }
+        return cents == 0 ? ZERO : new Money(cents);
+    }
+    
+    public static Money of(BigDecimal value) {
+        BigDecimal scaled = value.setScale(SCALE, RoundingMode.HALF_UP);
+        if (scaled.precision() > 18) {
+            throw new ArithmeticException("Amount out of range for DECIMAL(15, 2): " + value);
+        }
+        return ofCents(scaled.unscaledValue().longValue());
+    }
+    
+    public static Money parse(CharSequence text) {
+        return parse(text, 0, text.length());
+    }
+    
+    // Same syntax as new BigDecimal(String) for plain decimals, surrounding whitespace allowed.
+    // Digits past the second decimal only decide the HALF_UP rounding, so nothing is allocated but the result.
+    public static Money parse(CharSequence text, int start, int end) {
+        while (start < end && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        
+        int i = start;
+        boolean negative = false;
+        if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            negative = text.charAt(i) == '-';
+            i++;
+        }
+        
+        long units = 0;
+        int digits = 0;
+        for (; i < end && isDigit(text.charAt(i)); i++, digits++) {
+            units = units * 10 + (text.charAt(i) - '0');
+            if (units > MAX_CENTS / 100) {
+                // Out of range, unless an exponent follows; BigDecimal sorts out which
+                return of(new BigDecimal(text.subSequence(start, end).toString()));
+            }
+        }
+        
+        long fraction = 0;
+        int fractionDigits = 0;
+        boolean roundUp = false;
+        if (i < end && text.charAt(i) == '.') {
+            for (i++; i < end && isDigit(text.charAt(i)); i++, digits++) {
+                int digit = text.charAt(i) - '0';
+                if (fractionDigits < SCALE) {
+                    fraction = fraction * 10 + digit;
+                } else if (fractionDigits == SCALE) {
+                    roundUp = digit >= 5;
+                }
+                fractionDigits++;
+            }
+        }
+        
+        if (i < end && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+            // Exponent notation is rare enough to leave to BigDecimal
+            return of(new BigDecimal(text.subSequence(start, end).toString()));
+        }
+        if (i != end || digits == 0) {
+            throw new NumberFormatException("Not a decimal amount: " + text.subSequence(start, end));
+        }
+        
+        for (int d = Math.min(fractionDigits, SCALE); d < SCALE; d++) {
+            fraction *= 10;
+        }
+        long cents = units * 100 + fraction + (roundUp ? 1 : 0);
+        return ofCents(negative ? -cents : cents);
+    }
+    
+    public long cents() {
+        return cents;
+    }
+    
+    public Money plus(Money other) {
+        return ofCents(Math.addExact(cents, other.cents));
+    }
+    
+    public Money minus(Money other) {
+        return ofCents(Math.subtractExact(cents, other.cents));
+    }
+    
+    public int signum() {
+        return Long.signum(cents);
+    }
+    
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+    
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(cents, other.cents);
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Money other && other.cents == cents;
+    }
+    
+    @Override
+    public int hashCode() {
+        return Long.hashCode(cents);
+    }
+    
+    // Plain two-decimal form, e.g. 50000.00 or -0.05
+    @Override
+    public String toString() {
+        long abs = Math.abs(cents);
+        long fraction = abs % 100;
+        return (cents < 0 ? "-" : "") + abs / 100 + (fraction < 10 ? ".0" : ".") + fraction;
+    }
+    
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+    
+    public static final class Serializer extends StdSerializer<Money> {
+        
+        public Serializer() {
+            super(Money.class);
+        }
+        
+        @Override
+        public void serialize(Money value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeNumber(value.toString());
+        }
+    }
+    
+    public static final class Deserializer extends StdDeserializer<Money> {
+        
+        public Deserializer() {
+            super(Money.class);
+        }
+        
+        @Override
+        public Money deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            JsonToken token = p.currentToken();
+            if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT
+                    || token == JsonToken.VALUE_STRING) {
+                CharBuffer text = CharBuffer.wrap(p.getTextCharacters(), p.getTextOffset(), p.getTextLength());
+                if (token == JsonToken.VALUE_STRING && text.toString().isBlank()) {
+                    return null;
+                }
+                try {
+                    return parse(text);
+                } catch (NumberFormatException | ArithmeticException e) {
+                    return (Money) ctxt.handleWeirdStringValue(Money.class, text.toString(), e.getMessage());
+                }
+            }
+            return (Money) ctxt.handleUnexpectedToken(Money.class, p);
+        }
+    }
+}
@@ -1,4 +1,4 @@
-package com.payroll.consumer.dto;
+package com.payroll.common.dto;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -6,7 +6,6 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.io.Serializable;
-import java.math.BigDecimal;
 
 @Data
 @NoArgsConstructor
@@ -20,10 +19,10 @@ public class PayrollData implements Serializable {
     private String email;
     private String department;
     private String position;
-    private BigDecimal baseSalary;
-    private BigDecimal allowances;
-    private BigDecimal deductions;
-    private BigDecimal netSalary;
+    private Money baseSalary;
+    private Money allowances;
+    private Money deductions;
+    private Money netSalary;
     private String fileName;
     private Integer lineNumber;
     
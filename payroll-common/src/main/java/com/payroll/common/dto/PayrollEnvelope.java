@@ -0,0 +1,27 @@
+package com.payroll.common.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Several PayrollData records of one file and one partition, sent as a single Kafka message
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PayrollEnvelope {
+    
+    private List<PayrollData> records;
+    
+    // Listener values are either a single PayrollData or an envelope of them
+    public static List<PayrollData> unpack(Object value) {
+        if (value instanceof PayrollEnvelope envelope) {
+            return envelope.getRecords();
+        }
+        if (value instanceof PayrollData payrollData) {
+            return List.of(payrollData);
+        }
+        return List.of();
+    }
+}
@@ -0,0 +1,309 @@
+package com.payroll.common.kafka;
+
+import com.payroll.common.dto.Money;
+import com.payroll.common.dto.PayrollData;
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// Compact binary wire format for PayrollData, written by the producer and read by the consumer.
+//   message = magic(0xB7) version(1) flags(1) body, body = count(varint) record*
+//   flags bit 0 = body is deflate-compressed (used for multi-record envelopes)
+//   record  = employeeId firstName lastName email department* position*
+//             baseSalary allowances deductions netSalary fileName* lineNumber
+// Strings are tagged varints: 0 = null, odd = index into the message's string table,
+// even = literal of (tag/2 - 1) UTF-8 bytes. Fields marked * go into the string table,
+// so repeated departments, positions and file names are written once per message.
+// Money is a tagged varlong: 0 = null, low bits 01 = zigzag cents (scale 2),
+// low bits 10 = decimal string (only written by versions that carried BigDecimal amounts).
+// JSON payloads always start with '{', so they are never mistaken for this format.
+// Malformed input (truncated, corrupt, unknown version, a body inflating beyond the cap) fails with a
+// SerializationException.
+public final class PayrollDataCodec {
+    
+    public static final byte MAGIC = (byte) 0xB7;
+    public static final byte VERSION = 1;
+    
+    public static final int FLAG_DEFLATED = 1;
+    
+    // Cap on an envelope's inflated body unless the caller sets one. The format carries no uncompressed length,
+    // and deflate expands up to about 1000x, so a 1 MB message could otherwise claim a gigabyte of heap.
+    public static final int DEFAULT_MAX_INFLATED_BYTES = 16 << 20;
+    
+    private PayrollDataCodec() {
+    }
+    
+    public static boolean isBinary(byte[] data) {
+        return data != null && data.length >= 3 && data[0] == MAGIC;
+    }
+    
+    public static byte[] encode(PayrollData payrollData) {
+        return encode(List.of(payrollData));
+    }
+    
+    public static byte[] encode(List<PayrollData> records) {
+        return encode(records, false);
+    }
+    
+    public static byte[] encode(List<PayrollData> records, boolean compress) {
+        Writer out = new Writer(32 + records.size() * 96);
+        out.writeVarLong(records.size());
+        
+        Map<String, Integer> stringTable = new HashMap<>();
+        for (PayrollData data : records) {
+            out.writeString(data.getEmployeeId(), null);
+            out.writeString(data.getFirstName(), null);
+            out.writeString(data.getLastName(), null);
+            out.writeString(data.getEmail(), null);
+            out.writeString(data.getDepartment(), stringTable);
+            out.writeString(data.getPosition(), stringTable);
+            out.writeMoney(data.getBaseSalary());
+            out.writeMoney(data.getAllowances());
+            out.writeMoney(data.getDeductions());
+            out.writeMoney(data.getNetSalary());
+            out.writeString(data.getFileName(), stringTable);
+            out.writeVarLong(data.getLineNumber() == null ? 0 : data.getLineNumber() + 1L);
+        }
+        
+        byte[] body = compress ? deflate(out.buffer, out.size) : Arrays.copyOf(out.buffer, out.size);
+        byte[] message = new byte[body.length + 3];
+        message[0] = MAGIC;
+        message[1] = VERSION;
+        message[2] = (byte) (compress ? FLAG_DEFLATED : 0);
+        System.arraycopy(body, 0, message, 3, body.length);
+        return message;
+    }
+    
+    public static List<PayrollData> decode(byte[] data) {
+        return decode(data, DEFAULT_MAX_INFLATED_BYTES);
+    }
+    
+    public static List<PayrollData> decode(byte[] data, int maxInflatedBytes) {
+        if (!isBinary(data)) {
+            throw new SerializationException("Not a binary PayrollData message");
+        }
+        if (data[1] != VERSION) {
+            throw new SerializationException("Unsupported PayrollData wire format version: " + data[1]);
+        }
+        
+        Reader in = (data[2] & FLAG_DEFLATED) != 0 ? new Reader(inflate(data, 3, maxInflatedBytes), 0) : new Reader(data, 3);
+        int count = in.readCount();
+        List<PayrollData> records = new ArrayList<>(count);
+        List<String> stringTable = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            PayrollData payrollData = new PayrollData();
+            payrollData.setEmployeeId(in.readString(null));
+            payrollData.setFirstName(in.readString(null));
+            payrollData.setLastName(in.readString(null));
+            payrollData.setEmail(in.readString(null));
+            payrollData.setDepartment(in.readString(stringTable));
+            payrollData.setPosition(in.readString(stringTable));
+            payrollData.setBaseSalary(in.readMoney());
+            payrollData.setAllowances(in.readMoney());
+            payrollData.setDeductions(in.readMoney());
+            payrollData.setNetSalary(in.readMoney());
+            payrollData.setFileName(in.readString(stringTable));
+            long lineNumber = in.readVarLong();
+            payrollData.setLineNumber(lineNumber == 0 ? null : (int) (lineNumber - 1));
+            records.add(payrollData);
+        }
+        return records;
+    }
+    
+    private static byte[] deflate(byte[] data, int length) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(data, 0, length);
+            deflater.finish();
+            byte[] buffer = new byte[Math.max(64, length / 2)];
+            int size = 0;
+            while (!deflater.finished()) {
+                if (size == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                size += deflater.deflate(buffer, size, buffer.length - size);
+            }
+            return Arrays.copyOf(buffer, size);
+        } finally {
+            deflater.end();
+        }
+    }
+    
+    // The buffer grows to one byte past the cap at most, which tells a body over the cap from one that fits exactly
+    private static byte[] inflate(byte[] data, int offset, int maxInflatedBytes) {
+        int limit = maxInflatedBytes + 1;
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data, offset, data.length - offset);
+            byte[] buffer = new byte[(int) Math.min(limit, Math.max(256, (data.length - offset) * 4L))];
+            int size = 0;
+            while (!inflater.finished() && size < limit) {
+                if (size == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, (int) Math.min(limit, buffer.length * 2L));
+                }
+                int inflated = inflater.inflate(buffer, size, buffer.length - size);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new SerializationException("Truncated PayrollData envelope");
+                }
+                size += inflated;
+            }
+            if (size > maxInflatedBytes) {
+                throw new SerializationException("PayrollData envelope inflates beyond " + maxInflatedBytes + " bytes");
+            }
+            return Arrays.copyOf(buffer, size);
+        } catch (DataFormatException e) {
+            throw new SerializationException("Corrupt PayrollData envelope", e);
+        } finally {
+            inflater.end();
+        }
+    }
+    
+    private static final class Writer {
+        private byte[] buffer;
+        private int size;
+        
+        Writer(int capacity) {
+            buffer = new byte[capacity];
+        }
+        
+        void writeByte(int value) {
+            ensureCapacity(1);
+            buffer[size++] = (byte) value;
+        }
+        
+        void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+        
+        void writeString(String value, Map<String, Integer> stringTable) {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+            if (stringTable != null) {
+                Integer index = stringTable.get(value);
+                if (index != null) {
+                    writeVarLong(((long) index << 1) | 1);
+                    return;
+                }
+                stringTable.put(value, stringTable.size());
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong((bytes.length + 1L) << 1);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, size, bytes.length);
+            size += bytes.length;
+        }
+        
+        void writeMoney(Money value) {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+            long cents = value.cents();
+            writeVarLong((((cents << 1) ^ (cents >> 63)) << 2) | 1);
+        }
+        
+        private void ensureCapacity(int extra) {
+            if (size + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+            }
+        }
+    }
+    
+    private static final class Reader {
+        private final byte[] data;
+        private int position;
+        
+        Reader(byte[] data, int position) {
+            this.data = data;
+            this.position = position;
+        }
+        
+        long readVarLong() {
+            long value = 0;
+            int shift = 0;
+            while (true) {
+                if (position == data.length) {
+                    throw truncated();
+                }
+                if (shift > 63) {
+                    throw new SerializationException("Malformed varint at byte " + position + " of PayrollData message");
+                }
+                byte b = data[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+                shift += 7;
+            }
+        }
+        
+        String readString(List<String> stringTable) {
+            long tag = readVarLong();
+            if (tag == 0) {
+                return null;
+            }
+            if ((tag & 1) == 1) {
+                long index = tag >>> 1;
+                if (stringTable == null || index >= stringTable.size()) {
+                    throw new SerializationException("String table index " + index + " out of range in PayrollData message");
+                }
+                return stringTable.get((int) index);
+            }
+            long length = (tag >>> 1) - 1;
+            if (length > data.length - position) {
+                throw truncated();
+            }
+            String value = new String(data, position, (int) length, StandardCharsets.UTF_8);
+            position += (int) length;
+            if (stringTable != null) {
+                stringTable.add(value);
+            }
+            return value;
+        }
+        
+        // Every record takes at least one byte per field, so a larger count cannot be genuine
+        int readCount() {
+            long count = readVarLong();
+            if (count > data.length - position) {
+                throw new SerializationException("Record count " + count + " exceeds the PayrollData message size");
+            }
+            return (int) count;
+        }
+        
+        Money readMoney() {
+            long tag = readVarLong();
+            if (tag == 0) {
+                return null;
+            }
+            if ((tag & 3) == 1) {
+                long zigzag = tag >>> 2;
+                return Money.ofCents((zigzag >>> 1) ^ -(zigzag & 1));
+            }
+            String text = readString(null);
+            try {
+                return Money.parse(text == null ? "" : text);
+            } catch (NumberFormatException | ArithmeticException e) {
+                throw new SerializationException("Invalid amount in PayrollData message: " + text, e);
+            }
+        }
+        
+        private SerializationException truncated() {
+            return new SerializationException("Truncated PayrollData message: " + data.length + " bytes");
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.payroll.common.kafka;
+
+import com.payroll.common.dto.PayrollData;
+import com.payroll.common.dto.PayrollEnvelope;
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.util.List;
+import java.util.Map;
+
+// Reads both wire formats so the producer can be switched from JSON to binary without draining the topic.
+// Multi-record binary messages come out as a PayrollEnvelope, everything else as PayrollData.
+public class PayrollDataDeserializer implements Deserializer<Object> {
+    
+    public static final String MAX_INFLATED_BYTES_CONFIG = "payroll.max-inflated-bytes";
+    
+    private final JsonDeserializer<PayrollData> jsonDeserializer = new JsonDeserializer<>();
+    private int maxInflatedBytes = PayrollDataCodec.DEFAULT_MAX_INFLATED_BYTES;
+    
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        jsonDeserializer.configure(configs, isKey);
+        Object configured = configs.get(MAX_INFLATED_BYTES_CONFIG);
+        if (configured != null) {
+            try {
+                maxInflatedBytes = Integer.parseInt(String.valueOf(configured).trim());
+            } catch (NumberFormatException e) {
+                maxInflatedBytes = 0;
+            }
+            if (maxInflatedBytes <= 0 || maxInflatedBytes == Integer.MAX_VALUE) {
+                throw new ConfigException(MAX_INFLATED_BYTES_CONFIG, configured,
+                        "must be a positive number of bytes below " + Integer.MAX_VALUE);
+            }
+        }
+    }
+    
+    @Override
+    public Object deserialize(String topic, byte[] data) {
+        return deserialize(topic, null, data);
+    }
+    
+    @Override
+    public Object deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (PayrollDataCodec.isBinary(data)) {
+            List<PayrollData> records = PayrollDataCodec.decode(data, maxInflatedBytes);
+            return records.size() == 1 ? records.get(0) : new PayrollEnvelope(records);
+        }
+        return headers == null ? jsonDeserializer.deserialize(topic, data) : jsonDeserializer.deserialize(topic, headers, data);
+    }
+    
+    @Override
+    public void close() {
+        jsonDeserializer.close();
+    }
+}
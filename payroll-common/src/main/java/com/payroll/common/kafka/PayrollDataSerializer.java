@@ -0,0 +1,49 @@
+package com.payroll.common.kafka;
+
+import com.payroll.common.dto.PayrollData;
+import com.payroll.common.dto.PayrollEnvelope;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.Map;
+
+// Writes PayrollData as JSON or in the binary PayrollDataCodec format, chosen by the payroll.wire-format producer property.
+// Envelopes are always binary and compressed.
+public class PayrollDataSerializer implements Serializer<Object> {
+    
+    public static final String WIRE_FORMAT_CONFIG = "payroll.wire-format";
+    
+    private final JsonSerializer<Object> jsonSerializer = new JsonSerializer<>();
+    private boolean binary;
+    
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        jsonSerializer.configure(configs, isKey);
+        binary = "binary".equals(String.valueOf(configs.get(WIRE_FORMAT_CONFIG)));
+    }
+    
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        return serialize(topic, null, data);
+    }
+    
+    @Override
+    public byte[] serialize(String topic, Headers headers, Object data) {
+        if (data == null) {
+            return null;
+        }
+        if (data instanceof PayrollEnvelope envelope) {
+            return PayrollDataCodec.encode(envelope.getRecords(), true);
+        }
+        if (binary) {
+            return PayrollDataCodec.encode((PayrollData) data);
+        }
+        return headers == null ? jsonSerializer.serialize(topic, data) : jsonSerializer.serialize(topic, headers, data);
+    }
+    
+    @Override
+    public void close() {
+        jsonSerializer.close();
+    }
+}
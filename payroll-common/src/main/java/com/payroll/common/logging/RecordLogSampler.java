@@ -0,0 +1,43 @@
+package com.payroll.common.logging;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Decides which per-record log lines are written. In verbose mode every record is logged; in summary mode
+// only per-batch/per-file summaries are, plus the records of one employee in sample-every (none for 0).
+// Sampling is by employee ID hash and this one class serves producer and consumer (each imports it into its
+// context), so a sampled record can be followed end to end.
+@Component
+public class RecordLogSampler {
+    
+    @Value("${payroll.logging.mode:verbose}")
+    private String mode;
+    
+    @Value("${payroll.logging.sample-every:1000}")
+    private int sampleEvery;
+    
+    @PostConstruct
+    void validate() {
+        if (sampleEvery < 0) {
+            throw new IllegalStateException("payroll.logging.sample-every must be 0 (no sampled records) or more, got "
+                    + sampleEvery);
+        }
+    }
+    
+    public boolean isVerbose() {
+        return !"summary".equals(mode);
+    }
+    
+    public boolean sample(String employeeId) {
+        if (isVerbose()) {
+            return true;
+        }
+        return sampleEvery > 0 && (employeeId.hashCode() & Integer.MAX_VALUE) % sampleEvery == 0;
+    }
+    
+    // Whether a running count is due for a progress line in summary mode
+    public boolean sampleCount(long count) {
+        return !isVerbose() && sampleEvery > 0 && count % sampleEvery == 0;
+    }
+}
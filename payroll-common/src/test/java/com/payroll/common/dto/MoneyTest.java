@@ -0,0 +1,134 @@
+package com.payroll.common.dto;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Money must behave exactly like BigDecimal.setScale(2, HALF_UP) limited to DECIMAL(15, 2)
+class MoneyTest {
+    
+    private static final BigDecimal MAX = BigDecimal.valueOf(Money.MAX_CENTS, Money.SCALE);
+    
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "0", "0.00", "-0", "-0.00", "+1", "1.", ".5", "-.5", "  42.10  ", "007.5",
+            "50000", "50000.00", "123456.789", "-123456.789",
+            // Half-cent ties round away from zero, digits past the third decimal do not matter once it is decided
+            "0.005", "-0.005", "0.015", "-0.015", "2.675", "-2.675", "0.0049999", "-0.0049999", "0.00500", "1.994999",
+            "1.995", "-1.995", "0.0050000001",
+            // Range limit of DECIMAL(15, 2)
+            "9999999999999.99", "-9999999999999.99", "9999999999999.994", "-9999999999999.994",
+            "9999999999999.995", "-9999999999999.995", "10000000000000", "-10000000000000", "99999999999999999999.99",
+            "000000000000000000001.25",
+            // Exponents are handed to BigDecimal
+            "1e3", "1.2345E2", "-5e-3", "1E13", "9.99E12"
+    })
+    void parseMatchesBigDecimal(String text) {
+        assertMatches(text);
+    }
+    
+    @ParameterizedTest
+    @ValueSource(strings = {"", " ", "-", "+", ".", "-.", "1..2", "1.2.3", "abc", "1,00", "--1", "1-", "0x10", "1e"})
+    void parseRejectsNonDecimals(String text) {
+        assertThrows(NumberFormatException.class, () -> Money.parse(text));
+    }
+    
+    @Test
+    void parseMatchesBigDecimalForRandomAmounts() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            StringBuilder text = new StringBuilder();
+            if (random.nextBoolean()) {
+                text.append('-');
+            }
+            text.append(random.nextLong(1, 10_000_000_000_000_000L) / (long) Math.pow(10, random.nextInt(17)));
+            int fractionDigits = random.nextInt(6);
+            if (fractionDigits > 0) {
+                text.append('.');
+                for (int d = 0; d < fractionDigits; d++) {
+                    text.append(random.nextInt(10));
+                }
+            }
+            assertMatches(text.toString());
+        }
+    }
+    
+    @Test
+    void plusAndMinusMatchBigDecimal() {
+        Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++) {
+            long a = random.nextLong(-Money.MAX_CENTS, Money.MAX_CENTS + 1) / (long) Math.pow(10, random.nextInt(16));
+            long b = random.nextLong(-Money.MAX_CENTS, Money.MAX_CENTS + 1) / (long) Math.pow(10, random.nextInt(16));
+            BigDecimal left = BigDecimal.valueOf(a, Money.SCALE);
+            BigDecimal right = BigDecimal.valueOf(b, Money.SCALE);
+            assertArithmetic(left.add(right), () -> Money.ofCents(a).plus(Money.ofCents(b)));
+            assertArithmetic(left.subtract(right), () -> Money.ofCents(a).minus(Money.ofCents(b)));
+        }
+    }
+    
+    @Test
+    void plusAndMinusRejectOverflow() {
+        Money max = Money.ofCents(Money.MAX_CENTS);
+        Money min = Money.ofCents(-Money.MAX_CENTS);
+        Money cent = Money.ofCents(1);
+        
+        assertEquals(MAX, max.plus(Money.ZERO).toBigDecimal());
+        assertEquals(MAX.negate(), min.minus(Money.ZERO).toBigDecimal());
+        assertThrows(ArithmeticException.class, () -> max.plus(cent));
+        assertThrows(ArithmeticException.class, () -> min.minus(cent));
+        assertThrows(ArithmeticException.class, () -> max.minus(min));
+        assertThrows(ArithmeticException.class, () -> min.plus(min));
+    }
+    
+    @Test
+    void ofCentsEnforcesMaxCents() {
+        assertEquals(MAX, Money.ofCents(Money.MAX_CENTS).toBigDecimal());
+        assertEquals(MAX.negate(), Money.ofCents(-Money.MAX_CENTS).toBigDecimal());
+        assertThrows(ArithmeticException.class, () -> Money.ofCents(Money.MAX_CENTS + 1));
+        assertThrows(ArithmeticException.class, () -> Money.ofCents(-Money.MAX_CENTS - 1));
+        assertThrows(ArithmeticException.class, () -> Money.ofCents(Long.MAX_VALUE));
+        assertThrows(ArithmeticException.class, () -> Money.ofCents(Long.MIN_VALUE));
+    }
+    
+    @Test
+    void ofMatchesBigDecimal() {
+        for (String text : new String[]{"0.005", "-0.005", "1.23456", "-1.23456", "9999999999999.994", "1E-10"}) {
+            BigDecimal value = new BigDecimal(text);
+            assertEquals(value.setScale(Money.SCALE, RoundingMode.HALF_UP), Money.of(value).toBigDecimal(), text);
+        }
+        assertThrows(ArithmeticException.class, () -> Money.of(new BigDecimal("9999999999999.995")));
+        assertThrows(ArithmeticException.class, () -> Money.of(new BigDecimal("1E+30")));
+    }
+    
+    @Test
+    void toStringIsPlainTwoDecimalForm() {
+        for (long cents : new long[]{0, 1, -1, 5, -5, 10, -10, 99, 100, -100, 123456, Money.MAX_CENTS, -Money.MAX_CENTS}) {
+            assertEquals(BigDecimal.valueOf(cents, Money.SCALE).toPlainString(), Money.ofCents(cents).toString());
+        }
+    }
+    
+    private static void assertMatches(String text) {
+        BigDecimal expected = new BigDecimal(text.strip()).setScale(Money.SCALE, RoundingMode.HALF_UP);
+        if (expected.abs().compareTo(MAX) > 0) {
+            assertThrows(ArithmeticException.class, () -> Money.parse(text), text);
+        } else {
+            assertEquals(expected, Money.parse(text).toBigDecimal(), text);
+        }
+    }
+    
+    private static void assertArithmetic(BigDecimal expected, Supplier<Money> actual) {
+        if (expected.abs().compareTo(MAX) > 0) {
+            assertThrows(ArithmeticException.class, actual::get, expected.toPlainString());
+        } else {
+            assertEquals(expected, actual.get().toBigDecimal());
+        }
+    }
+}
@@ -1,9 +1,16 @@
 package com.payroll.consumer;
 
+import com.payroll.common.logging.RecordLogSampler;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableCaching
+@EnableScheduling
+@Import(RecordLogSampler.class)
 public class PayrollConsumerApplication {
     public static void main(String[] args) {
         SpringApplication.run(PayrollConsumerApplication.class, args);
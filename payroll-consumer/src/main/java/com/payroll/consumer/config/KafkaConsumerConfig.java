@@ -0,0 +1,97 @@
+package com.payroll.consumer.config;
+
+import com.payroll.consumer.kafka.FailedRecordPublisher;
+import com.payroll.consumer.service.EmployeeFingerprintCache;
+import com.payroll.consumer.service.PayrollColumnStore;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.boot.autoconfigure.kafka.DefaultKafkaConsumerFactoryCustomizer;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.kafka.listener.ContainerProperties;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+@Configuration
+public class KafkaConsumerConfig {
+    
+    @Value("${payroll.consumer.batch.max-size:500}")
+    private int batchMaxSize;
+    
+    // Same settings as the default factory, but hands the listener a whole poll (up to batch.max-size records).
+    // The customizers include Actuator's MicrometerConsumerListener, so client metrics such as
+    // kafka.consumer.fetch.manager.records.lag (per partition) are published for this factory too.
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> batchKafkaListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            KafkaProperties kafkaProperties,
+            ObjectProvider<DefaultKafkaConsumerFactoryCustomizer> consumerFactoryCustomizers) {
+        Map<String, Object> consumerProperties = kafkaProperties.buildConsumerProperties(null);
+        consumerProperties.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, batchMaxSize);
+        
+        DefaultKafkaConsumerFactory<Object, Object> consumerFactory = new DefaultKafkaConsumerFactory<>(consumerProperties);
+        consumerFactoryCustomizers.orderedStream().forEach(customizer -> customizer.customize(consumerFactory));
+        
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        factory.setBatchListener(true);
+        return factory;
+    }
+    
+    // Applied by Boot to every listener container factory above. A partition this instance just got may have been
+    // written by another instance until now, so the fingerprint cache is reloaded before its first poll, and the
+    // read model in the background (a full read of payroll_records would hold up the poll)
+    @Bean
+    public ConsumerAwareRebalanceListener cacheReloadRebalanceListener(EmployeeFingerprintCache employeeFingerprintCache,
+                                                                       PayrollColumnStore payrollColumnStore) {
+        return new ConsumerAwareRebalanceListener() {
+            @Override
+            public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+                if (!partitions.isEmpty()) {
+                    employeeFingerprintCache.reload();
+                    payrollColumnStore.requestReload();
+                }
+            }
+        };
+    }
+    
+    // Record listener for the retry topics, with manual acks so a record that is not due yet can be nacked
+    @Bean
+    @ConditionalOnProperty(name = "payroll.retry.enabled", havingValue = "true", matchIfMissing = true)
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> retryKafkaListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> kafkaConsumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, kafkaConsumerFactory);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        return factory;
+    }
+    
+    // One topic per retry tier plus the dead-letter topic, partitioned like the main topic
+    @Bean
+    @ConditionalOnProperty(name = "payroll.retry.enabled", havingValue = "true", matchIfMissing = true)
+    public KafkaAdmin.NewTopics retryTopics(FailedRecordPublisher failedRecordPublisher) {
+        List<NewTopic> topics = new ArrayList<>();
+        for (String topic : failedRecordPublisher.getRetryTopics()) {
+            topics.add(TopicBuilder.name(topic).partitions(3).replicas(1).build());
+        }
+        topics.add(TopicBuilder.name(failedRecordPublisher.getDeadLetterTopic()).partitions(3).replicas(1).build());
+        return new KafkaAdmin.NewTopics(topics.toArray(new NewTopic[0]));
+    }
+}
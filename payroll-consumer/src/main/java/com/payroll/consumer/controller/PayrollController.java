@@ -1,18 +1,44 @@
 package com.payroll.consumer.controller;
 
+import com.payroll.consumer.dto.DateTotals;
+import com.payroll.consumer.dto.DepartmentTotals;
+import com.payroll.consumer.dto.DuplicateGroup;
+import com.payroll.consumer.dto.LookupRequest;
+import com.payroll.consumer.dto.RollupCounts;
+import com.payroll.consumer.kafka.DeadLetterReplayer;
 import com.payroll.consumer.model.Employee;
 import com.payroll.consumer.model.PayrollRecord;
+import com.payroll.consumer.model.PayrollRollup;
 import com.payroll.consumer.repository.EmployeeRepository;
 import com.payroll.consumer.repository.PayrollRecordRepository;
+import com.payroll.consumer.service.EmployeeLookupService;
+import com.payroll.consumer.service.PayrollArchiveService;
+import com.payroll.consumer.service.PayrollColumnStore;
+import com.payroll.consumer.service.PayrollExportService;
+import com.payroll.consumer.service.PayrollLookupService;
+import com.payroll.consumer.service.PayrollResponseCache;
+import com.payroll.consumer.service.PayrollStatsService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @RestController
@@ -23,6 +49,19 @@ public class PayrollController {
     
     private final EmployeeRepository employeeRepository;
     private final PayrollRecordRepository payrollRecordRepository;
+    private final PayrollExportService payrollExportService;
+    private final PayrollLookupService payrollLookupService;
+    private final PayrollArchiveService payrollArchiveService;
+    private final PayrollResponseCache payrollResponseCache;
+    private final PayrollStatsService payrollStatsService;
+    private final PayrollColumnStore payrollColumnStore;
+    private final EmployeeLookupService employeeLookupService;
+    private final DeadLetterReplayer deadLetterReplayer;
+    
+    private static final int DEFAULT_PAGE_SIZE = 500;
+    private static final int MAX_PAGE_SIZE = 5000;
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
     
     @GetMapping("/health")
     public ResponseEntity<Map<String, String>> health() {
@@ -33,45 +72,97 @@ public class PayrollController {
         return ResponseEntity.ok(response);
     }
     
+    // Keyset pagination: pass the X-Next-Cursor header of one page as afterId to get the next one
     @GetMapping("/employees")
-    public ResponseEntity<List<Employee>> getAllEmployees() {
-        log.info("[CONSUMER] Fetching all employees");
-        List<Employee> employees = employeeRepository.findAll();
+    public ResponseEntity<List<Employee>> getAllEmployees(
+            @RequestParam(defaultValue = "0") long afterId,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        log.info("[CONSUMER] Fetching employees after id {} (limit {})", afterId, limit);
+        int pageSize = pageSize(limit);
+        List<Employee> employees = employeeRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.ofSize(pageSize));
         log.info("[CONSUMER] Found {} employees", employees.size());
-        return ResponseEntity.ok(employees);
+        return withNextCursor(employees, pageSize, Employee::getId);
+    }
+    
+    @GetMapping(value = "/employees/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamEmployees() {
+        log.info("[CONSUMER] Streaming all employees as NDJSON");
+        return ResponseEntity.ok()
+                .contentType(NDJSON)
+                .body(out -> payrollExportService.writeEmployees(out));
+    }
+    
+    // Many employees in one request instead of one GET each, streamed as NDJSON
+    @PostMapping(value = "/employees/lookup", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> lookupEmployees(@RequestBody LookupRequest request) {
+        if (!isValidLookup(request)) {
+            return ResponseEntity.badRequest().build();
+        }
+        log.info("[CONSUMER] Looking up {} employees", request.getEmployeeIds().size());
+        return ResponseEntity.ok()
+                .contentType(NDJSON)
+                .body(out -> payrollLookupService.writeEmployees(out, request.getEmployeeIds()));
     }
     
     @GetMapping("/employees/{employeeId}")
     public ResponseEntity<Employee> getEmployee(@PathVariable String employeeId) {
         log.info("[CONSUMER] Fetching employee with ID: {}", employeeId);
-        return employeeRepository.findByEmployeeId(employeeId)
+        return employeeLookupService.findEmployee(employeeId)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
     
     @GetMapping("/payroll-records")
-    public ResponseEntity<List<PayrollRecord>> getAllPayrollRecords() {
-        log.info("[CONSUMER] Fetching all payroll records");
-        List<PayrollRecord> records = payrollRecordRepository.findAll();
+    public ResponseEntity<List<PayrollRecord>> getAllPayrollRecords(
+            @RequestParam(defaultValue = "0") long afterId,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        log.info("[CONSUMER] Fetching payroll records after id {} (limit {})", afterId, limit);
+        int pageSize = pageSize(limit);
+        List<PayrollRecord> records = payrollRecordRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.ofSize(pageSize));
         log.info("[CONSUMER] Found {} payroll records", records.size());
-        return ResponseEntity.ok(records);
+        return withNextCursor(records, pageSize, PayrollRecord::getId);
+    }
+    
+    @GetMapping(value = "/payroll-records/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamPayrollRecords() {
+        log.info("[CONSUMER] Streaming all payroll records as NDJSON");
+        return ResponseEntity.ok()
+                .contentType(NDJSON)
+                .body(out -> payrollExportService.writePayrollRecords(out));
+    }
+    
+    // Payroll records of many employees over a date range (default today), streamed as NDJSON
+    @PostMapping(value = "/payroll-records/lookup", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> lookupPayrollRecords(@RequestBody LookupRequest request) {
+        if (!isValidLookup(request)) {
+            return ResponseEntity.badRequest().build();
+        }
+        LocalDate fromDate = request.getFrom() != null ? request.getFrom() : LocalDate.now();
+        LocalDate toDate = request.getTo() != null ? request.getTo() : fromDate;
+        log.info("[CONSUMER] Looking up payroll records of {} employees from {} to {}",
+                request.getEmployeeIds().size(), fromDate, toDate);
+        return ResponseEntity.ok()
+                .contentType(NDJSON)
+                .body(out -> payrollLookupService.writePayrollRecords(out, request.getEmployeeIds(), fromDate, toDate));
     }
     
     @GetMapping("/payroll-records/employee/{employeeId}")
     public ResponseEntity<List<PayrollRecord>> getPayrollRecordsByEmployee(
             @PathVariable String employeeId) {
         log.info("[CONSUMER] Fetching payroll records for employee: {}", employeeId);
-        List<PayrollRecord> records = payrollRecordRepository.findByEmployeeId(employeeId);
+        List<PayrollRecord> records = employeeLookupService.findPayrollRecords(employeeId);
         return ResponseEntity.ok(records);
     }
     
+    // Archived months are read from their archive file instead of MySQL. Conditional on the date's version,
+    // see versionedJson.
     @GetMapping("/payroll-records/date/{date}")
-    public ResponseEntity<List<PayrollRecord>> getPayrollRecordsByDate(
-            @PathVariable String date) {
+    public ResponseEntity<byte[]> getPayrollRecordsByDate(
+            @PathVariable String date, WebRequest request) {
         log.info("[CONSUMER] Fetching payroll records for date: {}", date);
         LocalDate payrollDate = LocalDate.parse(date);
-        List<PayrollRecord> records = payrollRecordRepository.findByPayrollDate(payrollDate);
-        return ResponseEntity.ok(records);
+        return versionedJson(request, "date:" + payrollDate, payrollDate,
+                () -> findPayrollRecordsByDate(payrollDate));
     }
     
     @GetMapping("/payroll-records/today")
@@ -82,90 +173,260 @@ public class PayrollController {
         return ResponseEntity.ok(records);
     }
     
+    // Searches with a date are conditional on the date's version, like /payroll-records/date/{date}
     @GetMapping("/payroll-records/search")
-    public ResponseEntity<Map<String, Object>> searchPayrollRecords(
+    public ResponseEntity<?> searchPayrollRecords(
             @RequestParam(required = false) String employeeId,
-            @RequestParam(required = false) String date) {
+            @RequestParam(required = false) String date,
+            @RequestParam(defaultValue = "0") long afterId,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+            WebRequest request) {
         log.info("[CONSUMER] Searching payroll records - employeeId: {}, date: {}", employeeId, date);
         
-        List<PayrollRecord> records;
-        
         if (employeeId != null && date != null) {
             // Search by both employee and date
             LocalDate payrollDate = LocalDate.parse(date);
-            records = payrollRecordRepository.findByEmployeeIdAndPayrollDate(employeeId, payrollDate)
-                    .map(List::of)
-                    .orElse(List.of());
+            return versionedJson(request, "search:" + employeeId + ":" + payrollDate, payrollDate,
+                    () -> searchResult(payrollArchiveService.isArchived(payrollDate)
+                            ? payrollArchiveService.findPayrollRecords(employeeId, payrollDate)
+                            : payrollRecordRepository.findByEmployeeIdAndPayrollDate(employeeId, payrollDate)
+                                    .map(List::of)
+                                    .orElse(List.of()),
+                            null, employeeId, date));
         } else if (employeeId != null) {
             // Search by employee only
-            records = payrollRecordRepository.findByEmployeeId(employeeId);
+            return ResponseEntity.ok(searchResult(employeeLookupService.findPayrollRecords(employeeId), null, employeeId, null));
         } else if (date != null) {
             // Search by date only
             LocalDate payrollDate = LocalDate.parse(date);
-            records = payrollRecordRepository.findByPayrollDate(payrollDate);
-        } else {
-            // No filter, return all
-            records = payrollRecordRepository.findAll();
+            return versionedJson(request, "search:" + payrollDate, payrollDate,
+                    () -> searchResult(findPayrollRecordsByDate(payrollDate), null, null, date));
         }
         
-        Map<String, Object> result = new HashMap<>();
-        result.put("totalFound", records.size());
-        result.put("records", records);
-        result.put("filters", Map.of(
-            "employeeId", employeeId != null ? employeeId : "all",
-            "date", date != null ? date : "all"
-        ));
-        
-        return ResponseEntity.ok(result);
+        // No filter, return one keyset page of all records
+        int pageSize = pageSize(limit);
+        List<PayrollRecord> records = payrollRecordRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.ofSize(pageSize));
+        Long nextCursor = records.size() == pageSize ? records.get(records.size() - 1).getId() : null;
+        return ResponseEntity.ok(searchResult(records, nextCursor, null, null));
     }
     
+    // Grouped in the database over a date range (default today) and paged; the resubmission and
+    // anomaly counters come from the rollups, so the "any duplicates?" check needs no scan at all
     @GetMapping("/payroll-records/duplicates")
-    public ResponseEntity<Map<String, Object>> checkDuplicates() {
-        log.info("[CONSUMER] Checking for duplicate payroll records");
+    public ResponseEntity<Map<String, Object>> checkDuplicates(
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "100") int size) {
+        LocalDate fromDate = from != null ? LocalDate.parse(from) : LocalDate.now();
+        LocalDate toDate = to != null ? LocalDate.parse(to) : fromDate;
+        log.info("[CONSUMER] Checking for duplicate payroll records from {} to {}", fromDate, toDate);
         
-        List<PayrollRecord> allRecords = payrollRecordRepository.findAll();
+        Slice<DuplicateGroup> groups = payrollRecordRepository.findDuplicateGroups(
+                fromDate, toDate, PageRequest.of(Math.max(page, 0), pageSize(size)));
         
-        // Group by employeeId + payrollDate to find duplicates
-        Map<String, List<PayrollRecord>> grouped = allRecords.stream()
-            .collect(Collectors.groupingBy(
-                record -> record.getEmployeeId() + "_" + record.getPayrollDate()
-            ));
+        // Load the rows of this page's groups only
+        Map<String, List<PayrollRecord>> duplicates = new LinkedHashMap<>();
+        if (groups.hasContent()) {
+            Set<String> employeeIds = groups.stream().map(DuplicateGroup::getEmployeeId).collect(Collectors.toSet());
+            Map<String, List<PayrollRecord>> byKey = payrollRecordRepository
+                    .findByEmployeeIdInAndPayrollDateBetween(employeeIds, fromDate, toDate).stream()
+                    .collect(Collectors.groupingBy(record -> record.getEmployeeId() + "_" + record.getPayrollDate()));
+            for (DuplicateGroup group : groups) {
+                String key = group.getEmployeeId() + "_" + group.getPayrollDate();
+                duplicates.put(key, byKey.getOrDefault(key, List.of()));
+            }
+        }
         
-        // Filter only groups with > 1 record (duplicates)
-        Map<String, List<PayrollRecord>> duplicates = grouped.entrySet().stream()
-            .filter(entry -> entry.getValue().size() > 1)
-            .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        RollupCounts counts = payrollStatsService.getCounts(fromDate, toDate);
         
         Map<String, Object> result = new HashMap<>();
-        result.put("totalRecords", allRecords.size());
-        result.put("duplicateGroups", duplicates.size());
-        result.put("hasDuplicates", !duplicates.isEmpty());
+        result.put("totalRecords", counts.getRecordCount());
+        result.put("resubmittedRecords", counts.getResubmittedCount());
+        result.put("anomalousRecords", counts.getAnomalyCount());
+        result.put("duplicateGroups", groups.getNumberOfElements());
+        result.put("hasDuplicates", groups.hasContent());
+        result.put("hasNext", groups.hasNext());
+        result.put("page", groups.getNumber());
         result.put("duplicates", duplicates);
         
-        log.info("[CONSUMER] Duplicate check: {} total records, {} duplicate groups", 
-                allRecords.size(), duplicates.size());
+        log.info("[CONSUMER] Duplicate check: {} records, {} duplicate groups on page {}",
+                counts.getRecordCount(), groups.getNumberOfElements(), groups.getNumber());
         
         return ResponseEntity.ok(result);
     }
     
+    // Served from the rollup tables that PayrollService keeps up to date, not from the base tables
     @GetMapping("/stats")
     public ResponseEntity<Map<String, Object>> getStats() {
         log.info("[CONSUMER] Fetching system statistics");
         
-        Map<String, Object> stats = new HashMap<>();
-        stats.put("totalEmployees", employeeRepository.count());
-        stats.put("totalPayrollRecords", payrollRecordRepository.count());
-        
-        List<Employee> employees = employeeRepository.findAll();
-        Map<String, Long> departmentCount = new HashMap<>();
-        
-        for (Employee emp : employees) {
-            departmentCount.merge(emp.getDepartment(), 1L, Long::sum);
-        }
-        
-        stats.put("employeesByDepartment", departmentCount);
+        Map<String, Object> stats = payrollStatsService.getSummary();
         
         log.info("[CONSUMER] Statistics: {}", stats);
         return ResponseEntity.ok(stats);
     }
+    
+    // Totals per date, department and status; defaults to today
+    @GetMapping("/stats/payroll")
+    public ResponseEntity<List<PayrollRollup>> getPayrollTotals(
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+        LocalDate fromDate = from != null ? LocalDate.parse(from) : LocalDate.now();
+        LocalDate toDate = to != null ? LocalDate.parse(to) : fromDate;
+        log.info("[CONSUMER] Fetching payroll totals from {} to {}", fromDate, toDate);
+        return ResponseEntity.ok(payrollStatsService.getPayrollTotals(fromDate, toDate));
+    }
+    
+    // Totals per department summed over a date range; defaults to today
+    @GetMapping("/stats/departments")
+    public ResponseEntity<List<DepartmentTotals>> getDepartmentTotals(
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+        LocalDate fromDate = from != null ? LocalDate.parse(from) : LocalDate.now();
+        LocalDate toDate = to != null ? LocalDate.parse(to) : fromDate;
+        log.info("[CONSUMER] Fetching department totals from {} to {}", fromDate, toDate);
+        return ResponseEntity.ok(payrollStatsService.getDepartmentTotals(fromDate, toDate));
+    }
+    
+    // Recomputes the rollups from employees and payroll_records, e.g. after manual edits to the base tables
+    @PostMapping("/stats/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildStats() {
+        log.info("[CONSUMER] Rebuilding statistics rollups");
+        payrollStatsService.rebuild();
+        return ResponseEntity.ok(payrollStatsService.getSummary());
+    }
+    
+    // Same totals as /stats/departments, summed from the in-memory read model instead of the rollup tables;
+    // optionally for one status only. 404 unless payroll.read-model.enabled is set.
+    @GetMapping("/read-model/departments")
+    public ResponseEntity<List<DepartmentTotals>> getReadModelDepartmentTotals(
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) String status) {
+        if (!payrollColumnStore.isEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        LocalDate fromDate = from != null ? LocalDate.parse(from) : LocalDate.now();
+        LocalDate toDate = to != null ? LocalDate.parse(to) : fromDate;
+        log.info("[CONSUMER] Scanning read model for department totals from {} to {}", fromDate, toDate);
+        return ResponseEntity.ok(payrollColumnStore.getDepartmentTotals(fromDate, toDate, status));
+    }
+    
+    // Totals per payroll date from the in-memory read model, optionally for one department only
+    @GetMapping("/read-model/dates")
+    public ResponseEntity<List<DateTotals>> getReadModelDateTotals(
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) String department) {
+        if (!payrollColumnStore.isEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        LocalDate fromDate = from != null ? LocalDate.parse(from) : LocalDate.now();
+        LocalDate toDate = to != null ? LocalDate.parse(to) : fromDate;
+        log.info("[CONSUMER] Scanning read model for date totals from {} to {}", fromDate, toDate);
+        return ResponseEntity.ok(payrollColumnStore.getDateTotals(fromDate, toDate, department));
+    }
+    
+    @GetMapping("/read-model/stats")
+    public ResponseEntity<Map<String, Object>> getReadModelStats() {
+        return ResponseEntity.ok(payrollColumnStore.getStats());
+    }
+    
+    // Re-feeds dead-lettered records to the main topic, e.g. after the cause of their failure has been fixed
+    @PostMapping("/dead-letters/replay")
+    public ResponseEntity<Map<String, Object>> replayDeadLetters(@RequestParam(defaultValue = "10000") int max) {
+        log.info("[CONSUMER] Replaying up to {} dead-lettered records", max);
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("replayed", deadLetterReplayer.replay(max));
+        return ResponseEntity.ok(response);
+    }
+    
+    // Months moved out of MySQL by the partition maintenance
+    @GetMapping("/archive")
+    public ResponseEntity<List<Map<String, Object>>> listArchives() {
+        return ResponseEntity.ok(payrollArchiveService.listArchives());
+    }
+    
+    // One archived month (e.g. 2024-01) as NDJSON
+    @GetMapping(value = "/archive/{month}", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamArchive(@PathVariable String month) {
+        YearMonth archivedMonth = YearMonth.parse(month);
+        if (!payrollArchiveService.isArchived(archivedMonth.atDay(1))) {
+            return ResponseEntity.notFound().build();
+        }
+        log.info("[CONSUMER] Streaming archived payroll records of {}", archivedMonth);
+        return ResponseEntity.ok()
+                .contentType(NDJSON)
+                .body(out -> payrollArchiveService.writeMonth(archivedMonth, out));
+    }
+    
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok(employeeLookupService.getStats());
+    }
+    
+    // ETag from the date's change counter, checked before any query; a 200 carries JSON that past dates get from
+    // PayrollResponseCache without touching JPA. A date whose version bump is still pending gets neither.
+    private ResponseEntity<byte[]> versionedJson(WebRequest request, String key, LocalDate payrollDate,
+                                                 Supplier<Object> body) {
+        long version = payrollResponseCache.getVersion(payrollDate);
+        if (!payrollResponseCache.isSettled(payrollDate)) {
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noStore())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(payrollResponseCache.getJson(key, payrollDate, version, body));
+        }
+        String etag = payrollResponseCache.etag(payrollDate, version);
+        CacheControl cacheControl = payrollResponseCache.cacheControl(payrollDate);
+        if (request.checkNotModified(etag)) {
+            // checkNotModified has set the status and the ETag already
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(payrollResponseCache.getJson(key, payrollDate, version, body));
+    }
+    
+    private List<PayrollRecord> findPayrollRecordsByDate(LocalDate payrollDate) {
+        return payrollArchiveService.isArchived(payrollDate)
+                ? payrollArchiveService.findPayrollRecords(payrollDate)
+                : payrollRecordRepository.findByPayrollDate(payrollDate);
+    }
+    
+    private boolean isValidLookup(LookupRequest request) {
+        return request.getEmployeeIds() != null && !request.getEmployeeIds().isEmpty()
+                && request.getEmployeeIds().size() <= payrollLookupService.getMaxIds();
+    }
+    
+    private static Map<String, Object> searchResult(List<PayrollRecord> records, Long nextCursor,
+                                                    String employeeId, String date) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("totalFound", records.size());
+        result.put("records", records);
+        if (nextCursor != null) {
+            result.put("nextCursor", nextCursor);
+        }
+        result.put("filters", Map.of(
+            "employeeId", employeeId != null ? employeeId : "all",
+            "date", date != null ? date : "all"
+        ));
+        return result;
+    }
+    
+    private static int pageSize(int limit) {
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+    
+    // A full page means there may be more; the client continues with afterId = X-Next-Cursor
+    private static <T> ResponseEntity<List<T>> withNextCursor(List<T> page, int pageSize, Function<T, Long> idOf) {
+        if (page.size() < pageSize) {
+            return ResponseEntity.ok(page);
+        }
+        return ResponseEntity.ok()
+                .header(NEXT_CURSOR_HEADER, String.valueOf(idOf.apply(page.get(page.size() - 1))))
+                .body(page);
+    }
 }
@@ -0,0 +1,21 @@
+package com.payroll.consumer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DateTotals {
+    
+    private LocalDate payrollDate;
+    private Long recordCount;
+    private BigDecimal totalBaseSalary;
+    private BigDecimal totalAllowances;
+    private BigDecimal totalDeductions;
+    private BigDecimal totalNetSalary;
+}
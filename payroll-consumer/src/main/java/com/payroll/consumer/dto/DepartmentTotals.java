@@ -0,0 +1,20 @@
+package com.payroll.consumer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DepartmentTotals {
+    
+    private String department;
+    private Long recordCount;
+    private BigDecimal totalBaseSalary;
+    private BigDecimal totalAllowances;
+    private BigDecimal totalDeductions;
+    private BigDecimal totalNetSalary;
+}
@@ -0,0 +1,17 @@
+package com.payroll.consumer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DuplicateGroup {
+    
+    private String employeeId;
+    private LocalDate payrollDate;
+    private Long recordCount;
+}
@@ -0,0 +1,19 @@
+package com.payroll.consumer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Body of the bulk lookups; from and to (inclusive, default today) only apply to payroll records
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LookupRequest {
+    
+    private List<String> employeeIds;
+    private LocalDate from;
+    private LocalDate to;
+}
@@ -0,0 +1,17 @@
+package com.payroll.consumer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Offsets of one partition covered by a poll: firstOffset is the first record, nextOffset the one after the last
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PartitionOffsets {
+    
+    private String topic;
+    private int partition;
+    private long firstOffset;
+    private long nextOffset;
+}
@@ -0,0 +1,15 @@
+package com.payroll.consumer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RollupCounts {
+    
+    private Long recordCount;
+    private Long resubmittedCount;
+    private Long anomalyCount;
+}
@@ -0,0 +1,93 @@
+package com.payroll.consumer.kafka;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+
+// Copies dead letters back onto the main topic, oldest first, once the cause has been fixed. The replay group's
+// offsets are committed behind the copied records, so every dead letter is replayed once. A replay stops at
+// the end of the DLT as it was when the replay started, or after max records.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DeadLetterReplayer {
+    
+    private static final Duration POLL_TIMEOUT = Duration.ofSeconds(1);
+    
+    private final ConsumerFactory<Object, Object> consumerFactory;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final FailedRecordPublisher failedRecordPublisher;
+    
+    @Value("${spring.kafka.consumer.group-id}")
+    private String groupId;
+    
+    public synchronized int replay(int max) {
+        String deadLetterTopic = failedRecordPublisher.getDeadLetterTopic();
+        String payrollTopic = failedRecordPublisher.getPayrollTopic();
+        
+        // Raw bytes in and out: the records are already in the binary PayrollDataCodec format
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
+        overrides.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
+        overrides.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        overrides.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        
+        int replayed = 0;
+        try (Consumer<Object, Object> consumer = consumerFactory.createConsumer(
+                groupId + "-dlt-replay", null, null, overrides)) {
+            List<PartitionInfo> partitionInfos = consumer.partitionsFor(deadLetterTopic);
+            if (partitionInfos == null || partitionInfos.isEmpty()) {
+                return 0;
+            }
+            List<TopicPartition> partitions = partitionInfos.stream()
+                    .map(info -> new TopicPartition(info.topic(), info.partition()))
+                    .toList();
+            consumer.assign(partitions);
+            Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions);
+            
+            while (replayed < max && !caughtUp(consumer, endOffsets)) {
+                Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+                List<CompletableFuture<?>> sends = new ArrayList<>();
+                for (ConsumerRecord<Object, Object> record : consumer.poll(POLL_TIMEOUT)) {
+                    TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+                    if (replayed == max || record.offset() >= endOffsets.get(partition)) {
+                        continue;
+                    }
+                    sends.add(kafkaTemplate.send(payrollTopic, (String) record.key(), (byte[]) record.value()));
+                    offsets.put(partition, new OffsetAndMetadata(record.offset() + 1));
+                    replayed++;
+                }
+                CompletableFuture.allOf(sends.toArray(new CompletableFuture[0])).join();
+                if (!offsets.isEmpty()) {
+                    consumer.commitSync(offsets);
+                }
+            }
+        }
+        
+        log.info("[CONSUMER] ♻️ Replayed {} dead-lettered records from {} to {}", replayed, deadLetterTopic, payrollTopic);
+        return replayed;
+    }
+    
+    private static boolean caughtUp(Consumer<Object, Object> consumer, Map<TopicPartition, Long> endOffsets) {
+        return endOffsets.entrySet().stream().allMatch(end -> consumer.position(end.getKey()) >= end.getValue());
+    }
+}
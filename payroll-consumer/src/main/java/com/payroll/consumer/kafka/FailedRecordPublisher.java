@@ -0,0 +1,120 @@
+package com.payroll.consumer.kafka;
+
+import com.payroll.common.dto.PayrollData;
+import com.payroll.common.kafka.PayrollDataCodec;
+import com.payroll.consumer.service.PayrollService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// Moves records that failed processing off the main listener: tier N goes to <topic>-retry-N, due after the
+// N-th configured delay, and a record that has used up every tier lands in <topic>-dlt. Records are re-published
+// one by one in the binary PayrollDataCodec format (an envelope is split), keyed by employee ID, with the
+// failure reason, fileName and lineNumber as headers so the DLT can be read without the original topic.
+// Every tier also carries the time the record first failed on the main listener, which stands in for when it was
+// taken in: PayrollService skips a retry once a record of the same employee taken in later has been written.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class FailedRecordPublisher {
+    
+    public static final String TIER_HEADER = "payroll-retry-tier";
+    public static final String DUE_AT_HEADER = "payroll-retry-due-at";
+    public static final String REASON_HEADER = "payroll-failure-reason";
+    public static final String EXCEPTION_HEADER = "payroll-failure-exception";
+    public static final String FILE_NAME_HEADER = "payroll-file-name";
+    public static final String LINE_NUMBER_HEADER = "payroll-line-number";
+    public static final String RECEIVED_AT_HEADER = "payroll-received-at";
+    
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final MeterRegistry meterRegistry;
+    
+    @Value("${spring.kafka.topic.payroll-data}")
+    private String payrollTopicName;
+    
+    @Value("${payroll.retry.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${payroll.retry.delays:10s,1m,10m}")
+    private List<Duration> delays;
+    
+    public List<Duration> getDelays() {
+        return delays;
+    }
+    
+    public List<String> getRetryTopics() {
+        List<String> topics = new ArrayList<>(delays.size());
+        for (int tier = 0; tier < delays.size(); tier++) {
+            topics.add(payrollTopicName + "-retry-" + tier);
+        }
+        return topics;
+    }
+    
+    public String getDeadLetterTopic() {
+        return payrollTopicName + "-dlt";
+    }
+    
+    public String getPayrollTopic() {
+        return payrollTopicName;
+    }
+    
+    // A record that failed on the main listener
+    public void publish(PayrollData payrollData, Exception cause, int tier) {
+        publish(payrollData, cause, tier, PayrollService.nextReceivedAt());
+    }
+    
+    // tier = number of retries the record has already had (0 when it failed on the main listener),
+    // receivedAtMillis = RECEIVED_AT_HEADER of the retried record.
+    // Waits for the broker ack, so the caller's offset is not committed before the record is safe.
+    public void publish(PayrollData payrollData, Exception cause, int tier, long receivedAtMillis) {
+        if (!enabled) {
+            meterRegistry.counter("payroll.consumer.failed.records", "target", "dropped").increment();
+            return;
+        }
+        
+        boolean deadLetter = tier >= delays.size();
+        String topic = deadLetter ? getDeadLetterTopic() : getRetryTopics().get(tier);
+        Throwable rootCause = NestedExceptionUtils.getMostSpecificCause(cause);
+        
+        ProducerRecord<String, byte[]> record = new ProducerRecord<>(
+                topic, payrollData.getEmployeeId(), PayrollDataCodec.encode(payrollData));
+        header(record, TIER_HEADER, Integer.toString(tier));
+        header(record, REASON_HEADER, String.valueOf(rootCause.getMessage()));
+        header(record, EXCEPTION_HEADER, rootCause.getClass().getName());
+        header(record, FILE_NAME_HEADER, payrollData.getFileName());
+        header(record, LINE_NUMBER_HEADER, payrollData.getLineNumber() == null ? null : payrollData.getLineNumber().toString());
+        header(record, RECEIVED_AT_HEADER, Long.toString(receivedAtMillis));
+        if (!deadLetter) {
+            header(record, DUE_AT_HEADER, Long.toString(System.currentTimeMillis() + delays.get(tier).toMillis()));
+        }
+        
+        kafkaTemplate.send(record).join();
+        meterRegistry.counter("payroll.consumer.failed.records", "target", deadLetter ? "dlt" : "retry-" + tier)
+                .increment();
+        
+        if (deadLetter) {
+            log.error("[CONSUMER] ☠️ Employee ID: {} ({} line {}) sent to dead-letter topic {} after {} retries: {}",
+                    payrollData.getEmployeeId(), payrollData.getFileName(), payrollData.getLineNumber(),
+                    topic, tier, rootCause.getMessage());
+        } else {
+            log.warn("[CONSUMER] 🔁 Employee ID: {} sent to {}, retry in {}",
+                    payrollData.getEmployeeId(), topic, delays.get(tier));
+        }
+    }
+    
+    private static void header(ProducerRecord<String, byte[]> record, String name, String value) {
+        if (value != null) {
+            record.headers().add(name, value.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
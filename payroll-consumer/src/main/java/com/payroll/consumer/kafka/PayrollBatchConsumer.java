@@ -0,0 +1,76 @@
+package com.payroll.consumer.kafka;
+
+import com.payroll.common.dto.PayrollData;
+import com.payroll.common.dto.PayrollEnvelope;
+import com.payroll.consumer.service.PayrollService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "payroll.consumer.mode", havingValue = "batch")
+public class PayrollBatchConsumer {
+    
+    private final PayrollService payrollService;
+    private final MeterRegistry meterRegistry;
+    private final FailedRecordPublisher failedRecordPublisher;
+    
+    @KafkaListener(
+            topics = "${spring.kafka.topic.payroll-data}",
+            groupId = "${spring.kafka.consumer.group-id}",
+            containerFactory = "batchKafkaListenerContainerFactory"
+    )
+    public void consumePayrollBatch(List<ConsumerRecord<String, Object>> records) {
+        long startNanos = System.nanoTime();
+        
+        // Envelopes are flattened in offset order, so per-employee ordering is unchanged
+        List<PayrollData> batch = records.stream()
+                .flatMap(record -> PayrollEnvelope.unpack(record.value()).stream())
+                .toList();
+        Set<Integer> partitions = new TreeSet<>();
+        records.forEach(record -> partitions.add(record.partition()));
+        
+        String outcome = "success";
+        try {
+            payrollService.processPayrollBatch(batch);
+        } catch (Exception e) {
+            outcome = "fallback";
+            log.error("[CONSUMER] ❌ Batch upsert of {} records failed, falling back to per-record processing",
+                    batch.size(), e);
+            processOneByOne(batch);
+        }
+        
+        long elapsedNanos = System.nanoTime() - startNanos;
+        meterRegistry.timer("payroll.consumer.process", "mode", "batch", "outcome", outcome)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        meterRegistry.summary("payroll.consumer.batch.size").record(batch.size());
+        meterRegistry.counter("payroll.consumer.records", "mode", "batch", "outcome", outcome).increment(batch.size());
+        
+        long elapsedMillis = Math.max(1, elapsedNanos / 1_000_000);
+        log.info("[CONSUMER] 📦 Processed batch of {} records from partitions {} in {} ms ({} records/s)",
+                batch.size(), partitions, elapsedMillis, batch.size() * 1000L / elapsedMillis);
+    }
+    
+    private void processOneByOne(List<PayrollData> batch) {
+        for (PayrollData payrollData : batch) {
+            try {
+                payrollService.processPayrollData(payrollData);
+            } catch (Exception e) {
+                log.error("[CONSUMER] ❌ Error processing payroll data for Employee ID: {}",
+                        payrollData.getEmployeeId(), e);
+                failedRecordPublisher.publish(payrollData, e, 0);
+            }
+        }
+    }
+}
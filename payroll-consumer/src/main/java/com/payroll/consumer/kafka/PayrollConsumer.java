@@ -1,46 +1,103 @@
 package com.payroll.consumer.kafka;
 
-import com.payroll.consumer.dto.PayrollData;
+import com.payroll.common.dto.PayrollData;
+import com.payroll.common.dto.PayrollEnvelope;
+import com.payroll.common.logging.RecordLogSampler;
 import com.payroll.consumer.service.PayrollService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaHandler;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
+@ConditionalOnProperty(name = "payroll.consumer.mode", havingValue = "single", matchIfMissing = true)
+@KafkaListener(
+        topics = "${spring.kafka.topic.payroll-data}",
+        groupId = "${spring.kafka.consumer.group-id}",
+        containerFactory = "kafkaListenerContainerFactory"
+)
 public class PayrollConsumer {
     
     private final PayrollService payrollService;
+    private final MeterRegistry meterRegistry;
+    private final RecordLogSampler recordLogSampler;
+    private final FailedRecordPublisher failedRecordPublisher;
+    
+    // Running totals for the summary line of summary logging mode
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
     
-    @KafkaListener(
-            topics = "${spring.kafka.topic.payroll-data}",
-            groupId = "${spring.kafka.consumer.group-id}",
-            containerFactory = "kafkaListenerContainerFactory"
-    )
+    @KafkaHandler
+    public void consumePayrollEnvelope(
+            @Payload PayrollEnvelope envelope,
+            @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
+            @Header(KafkaHeaders.OFFSET) long offset) {
+        
+        if (recordLogSampler.isVerbose()) {
+            log.info("[CONSUMER] 📨 Received envelope of {} records from partition {} at offset {}",
+                    envelope.getRecords().size(), partition, offset);
+        }
+        
+        // Records of one envelope are processed in order, exactly as if they had arrived one message each
+        for (PayrollData payrollData : envelope.getRecords()) {
+            process(payrollData);
+        }
+    }
+    
+    @KafkaHandler
     public void consumePayrollData(
             @Payload PayrollData payrollData,
             @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
             @Header(KafkaHeaders.OFFSET) long offset) {
         
-        log.info("╔══════════════════════════════════════════════════════════════╗");
-        log.info("║  [CONSUMER] 📨 Received message from Kafka                   ║");
-        log.info("║  Employee ID: {}                                        ║", payrollData.getEmployeeId());
-        log.info("║  Partition: {}  |  Offset: {}                              ║", partition, offset);
-        log.info("╚══════════════════════════════════════════════════════════════╝");
+        if (recordLogSampler.isVerbose()) {
+            log.info("╔══════════════════════════════════════════════════════════════╗");
+            log.info("║  [CONSUMER] 📨 Received message from Kafka                   ║");
+            log.info("║  Employee ID: {}                                        ║", payrollData.getEmployeeId());
+            log.info("║  Partition: {}  |  Offset: {}                              ║", partition, offset);
+            log.info("╚══════════════════════════════════════════════════════════════╝");
+        } else if (recordLogSampler.sample(payrollData.getEmployeeId())) {
+            log.info("[CONSUMER] 📨 Received Employee ID: {} from partition {} at offset {}",
+                    payrollData.getEmployeeId(), partition, offset);
+        }
         
+        process(payrollData);
+    }
+    
+    private void process(PayrollData payrollData) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
         try {
             payrollService.processPayrollData(payrollData);
-            log.info("[CONSUMER] ✅ Successfully processed payroll data for Employee ID: {}", 
-                    payrollData.getEmployeeId());
+            if (recordLogSampler.sample(payrollData.getEmployeeId())) {
+                log.info("[CONSUMER] ✅ Successfully processed payroll data for Employee ID: {}", 
+                        payrollData.getEmployeeId());
+            }
         } catch (Exception e) {
+            outcome = "error";
+            failed.incrementAndGet();
             log.error("[CONSUMER] ❌ Error processing payroll data for Employee ID: {}", 
                     payrollData.getEmployeeId(), e);
-            // Implement retry logic or dead letter queue here if needed
+            failedRecordPublisher.publish(payrollData, e, 0);
+        } finally {
+            sample.stop(meterRegistry.timer("payroll.consumer.process", "mode", "single", "outcome", outcome));
+            meterRegistry.counter("payroll.consumer.records", "mode", "single", "outcome", outcome).increment();
+        }
+        
+        long total = processed.incrementAndGet();
+        if (recordLogSampler.sampleCount(total)) {
+            log.info("[CONSUMER] 📊 Processed {} records so far ({} failed)", total, failed.get());
         }
     }
 }
@@ -0,0 +1,141 @@
+package com.payroll.consumer.kafka;
+
+import com.payroll.common.dto.PayrollData;
+import com.payroll.common.dto.PayrollEnvelope;
+import com.payroll.consumer.dto.PartitionOffsets;
+import com.payroll.consumer.repository.ConsumerOffsetRepository;
+import com.payroll.consumer.service.PayrollService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.AbstractConsumerSeekAware;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Batch listener that keeps its offsets in MySQL (consumer_offsets) in the same transaction as the data, and
+// seeks to them whenever partitions are assigned. A poll is therefore never written twice, which the batch
+// mode only approximates with its lookups. The container still commits to Kafka, for lag monitoring only.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "payroll.consumer.mode", havingValue = "exactly-once")
+public class PayrollExactlyOnceConsumer extends AbstractConsumerSeekAware {
+    
+    private final PayrollService payrollService;
+    private final ConsumerOffsetRepository consumerOffsetRepository;
+    private final FailedRecordPublisher failedRecordPublisher;
+    private final MeterRegistry meterRegistry;
+    
+    @Value("${spring.kafka.consumer.group-id}")
+    private String groupId;
+    
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        super.onPartitionsAssigned(assignments, callback);
+        Map<String, Map<Integer, Long>> storedByTopic = new LinkedHashMap<>();
+        for (TopicPartition partition : assignments.keySet()) {
+            Long offset = storedByTopic
+                    .computeIfAbsent(partition.topic(), topic -> consumerOffsetRepository.findOffsets(groupId, topic))
+                    .get(partition.partition());
+            if (offset != null) {
+                callback.seek(partition.topic(), partition.partition(), offset);
+                log.info("[CONSUMER] ⏩ Resuming {} at stored offset {}", partition, offset);
+            }
+        }
+    }
+    
+    @KafkaListener(
+            topics = "${spring.kafka.topic.payroll-data}",
+            groupId = "${spring.kafka.consumer.group-id}",
+            containerFactory = "batchKafkaListenerContainerFactory"
+    )
+    public void consumePayrollBatch(List<ConsumerRecord<String, Object>> records) {
+        long startNanos = System.nanoTime();
+        
+        List<PayrollData> batch = records.stream()
+                .flatMap(record -> PayrollEnvelope.unpack(record.value()).stream())
+                .toList();
+        
+        String outcome = "success";
+        try {
+            payrollService.processPayrollBatch(batch, groupId, partitionOffsets(records));
+        } catch (OptimisticLockingFailureException e) {
+            outcome = "stale";
+            log.warn("[CONSUMER] ⏪ Poll already committed by another consumer, rewinding to stored offsets: {}",
+                    e.getMessage());
+            rewind(records);
+        } catch (Exception e) {
+            outcome = "fallback";
+            log.error("[CONSUMER] ❌ Batch upsert of {} records failed, falling back to one message per transaction",
+                    batch.size(), e);
+            processOneByOne(records);
+        }
+        
+        long elapsedNanos = System.nanoTime() - startNanos;
+        meterRegistry.timer("payroll.consumer.process", "mode", "exactly-once", "outcome", outcome)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        meterRegistry.summary("payroll.consumer.batch.size").record(batch.size());
+        meterRegistry.counter("payroll.consumer.records", "mode", "exactly-once", "outcome", outcome)
+                .increment(batch.size());
+        
+        long elapsedMillis = Math.max(1, elapsedNanos / 1_000_000);
+        log.info("[CONSUMER] 📦 Processed batch of {} records with offsets in {} ms ({} records/s)",
+                batch.size(), elapsedMillis, batch.size() * 1000L / elapsedMillis);
+    }
+    
+    // Each message commits with its own offset. A message that still fails is handed to the retry topics whole
+    // (an envelope with all its records) before its offset is stored, so from there on it is at-least-once.
+    private void processOneByOne(List<ConsumerRecord<String, Object>> records) {
+        for (int i = 0; i < records.size(); i++) {
+            ConsumerRecord<String, Object> record = records.get(i);
+            List<PartitionOffsets> offsets = partitionOffsets(List.of(record));
+            List<PayrollData> payrollDataList = PayrollEnvelope.unpack(record.value());
+            try {
+                payrollService.processPayrollBatch(payrollDataList, groupId, offsets);
+            } catch (OptimisticLockingFailureException e) {
+                log.warn("[CONSUMER] ⏪ Offset {} already committed by another consumer, rewinding to stored offsets",
+                        record.offset());
+                rewind(records.subList(i, records.size()));
+                return;
+            } catch (Exception e) {
+                for (PayrollData payrollData : payrollDataList) {
+                    log.error("[CONSUMER] ❌ Error processing payroll data for Employee ID: {}",
+                            payrollData.getEmployeeId(), e);
+                    failedRecordPublisher.publish(payrollData, e, 0);
+                }
+                consumerOffsetRepository.advance(groupId, offsets);
+            }
+        }
+    }
+    
+    private void rewind(List<ConsumerRecord<String, Object>> records) {
+        for (PartitionOffsets offsets : partitionOffsets(records)) {
+            Long stored = consumerOffsetRepository.findOffsets(groupId, offsets.getTopic()).get(offsets.getPartition());
+            if (stored != null) {
+                getSeekCallbackFor(new TopicPartition(offsets.getTopic(), offsets.getPartition()))
+                        .seek(offsets.getTopic(), offsets.getPartition(), stored);
+            }
+        }
+    }
+    
+    private static List<PartitionOffsets> partitionOffsets(List<ConsumerRecord<String, Object>> records) {
+        Map<TopicPartition, PartitionOffsets> byPartition = new LinkedHashMap<>();
+        for (ConsumerRecord<String, Object> record : records) {
+            byPartition.computeIfAbsent(new TopicPartition(record.topic(), record.partition()),
+                            partition -> new PartitionOffsets(record.topic(), record.partition(), record.offset(), 0))
+                    .setNextOffset(record.offset() + 1);
+        }
+        return new ArrayList<>(byPartition.values());
+    }
+}
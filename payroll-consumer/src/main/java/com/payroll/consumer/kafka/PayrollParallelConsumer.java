@@ -0,0 +1,146 @@
+package com.payroll.consumer.kafka;
+
+import com.payroll.common.dto.PayrollData;
+import com.payroll.common.dto.PayrollEnvelope;
+import com.payroll.common.logging.RecordLogSampler;
+import com.payroll.consumer.service.PayrollService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Processes each poll with more threads than there are partitions: records are grouped by employee ID and
+// every group runs on its own virtual thread, in offset order, so one employee's records are never reordered.
+// A semaphore caps the transactions in flight at max-concurrency, which should follow the DB connection pool.
+// The listener returns, and the container commits the poll's offsets, only once every group has finished.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "payroll.consumer.mode", havingValue = "parallel")
+public class PayrollParallelConsumer {
+    
+    private final PayrollService payrollService;
+    private final MeterRegistry meterRegistry;
+    private final RecordLogSampler recordLogSampler;
+    private final FailedRecordPublisher failedRecordPublisher;
+    
+    @Value("${payroll.consumer.parallel.max-concurrency:8}")
+    private int maxConcurrency;
+    
+    @Value("${payroll.consumer.parallel.max-attempts:3}")
+    private int maxAttempts;
+    
+    private ExecutorService executor;
+    private Semaphore dbSlots;
+    
+    @PostConstruct
+    void init() {
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        dbSlots = new Semaphore(maxConcurrency);
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+    
+    @KafkaListener(
+            topics = "${spring.kafka.topic.payroll-data}",
+            groupId = "${spring.kafka.consumer.group-id}",
+            containerFactory = "batchKafkaListenerContainerFactory"
+    )
+    public void consumePayrollBatch(List<ConsumerRecord<String, Object>> records) {
+        long startNanos = System.nanoTime();
+        
+        // Envelopes are flattened in offset order before grouping, so per-employee order is kept
+        Map<String, List<PayrollData>> byEmployee = new LinkedHashMap<>();
+        int total = 0;
+        for (ConsumerRecord<String, Object> record : records) {
+            for (PayrollData payrollData : PayrollEnvelope.unpack(record.value())) {
+                byEmployee.computeIfAbsent(payrollData.getEmployeeId(), id -> new ArrayList<>()).add(payrollData);
+                total++;
+            }
+        }
+        
+        AtomicInteger failed = new AtomicInteger();
+        List<CompletableFuture<Void>> groups = new ArrayList<>(byEmployee.size());
+        for (List<PayrollData> group : byEmployee.values()) {
+            groups.add(CompletableFuture.runAsync(() -> group.forEach(payrollData -> {
+                if (!process(payrollData)) {
+                    failed.incrementAndGet();
+                }
+            }), executor));
+        }
+        CompletableFuture.allOf(groups.toArray(new CompletableFuture[0])).join();
+        
+        long elapsedNanos = System.nanoTime() - startNanos;
+        String outcome = failed.get() == 0 ? "success" : "error";
+        meterRegistry.timer("payroll.consumer.process", "mode", "parallel", "outcome", outcome)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        meterRegistry.summary("payroll.consumer.batch.size").record(total);
+        meterRegistry.counter("payroll.consumer.records", "mode", "parallel", "outcome", "success")
+                .increment(total - failed.get());
+        meterRegistry.counter("payroll.consumer.records", "mode", "parallel", "outcome", "error")
+                .increment(failed.get());
+        
+        long elapsedMillis = Math.max(1, elapsedNanos / 1_000_000);
+        log.info("[CONSUMER] 🧵 Processed {} records of {} employees in parallel in {} ms ({} records/s, {} failed)",
+                total, byEmployee.size(), elapsedMillis, total * 1000L / elapsedMillis, failed.get());
+    }
+    
+    // One transaction per record, as in single mode. Lock conflicts between concurrent transactions
+    // (e.g. on the shared rollup rows) are retried; anything else goes to the retry topics.
+    private boolean process(PayrollData payrollData) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                dbSlots.acquire();
+                try {
+                    payrollService.processPayrollData(payrollData);
+                } finally {
+                    dbSlots.release();
+                }
+                if (recordLogSampler.sample(payrollData.getEmployeeId())) {
+                    log.info("[CONSUMER] ✅ Successfully processed payroll data for Employee ID: {}",
+                            payrollData.getEmployeeId());
+                }
+                return true;
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= maxAttempts) {
+                    log.error("[CONSUMER] ❌ Lock conflict persisted after {} attempts for Employee ID: {}",
+                            attempt, payrollData.getEmployeeId(), e);
+                    failedRecordPublisher.publish(payrollData, e, 0);
+                    return false;
+                }
+                log.warn("[CONSUMER] 🔁 Lock conflict for Employee ID: {}, retrying (attempt {}/{})",
+                        payrollData.getEmployeeId(), attempt, maxAttempts);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("[CONSUMER] Interrupted while processing Employee ID: {}", payrollData.getEmployeeId());
+                return false;
+            } catch (Exception e) {
+                log.error("[CONSUMER] ❌ Error processing payroll data for Employee ID: {}",
+                        payrollData.getEmployeeId(), e);
+                failedRecordPublisher.publish(payrollData, e, 0);
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.payroll.consumer.kafka;
+
+import com.payroll.common.dto.PayrollData;
+import com.payroll.common.dto.PayrollEnvelope;
+import com.payroll.consumer.service.PayrollService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListenerConfigurer;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistrar;
+import org.springframework.kafka.config.MethodKafkaListenerEndpoint;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.messaging.handler.annotation.support.DefaultMessageHandlerMethodFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+// Works through the retry topics next to the main listener, which never waits for a failed record.
+// Each tier gets its own listener container, because a record that is not due yet pauses its whole consumer:
+// within one tier every record has the same delay, so the records behind it are not due either.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "payroll.retry.enabled", havingValue = "true", matchIfMissing = true)
+public class PayrollRetryConsumer implements KafkaListenerConfigurer {
+    
+    private final PayrollService payrollService;
+    private final FailedRecordPublisher failedRecordPublisher;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentKafkaListenerContainerFactory<Object, Object> retryKafkaListenerContainerFactory;
+    
+    @Value("${spring.kafka.consumer.group-id}")
+    private String groupId;
+    
+    @Override
+    public void configureKafkaListeners(KafkaListenerEndpointRegistrar registrar) {
+        DefaultMessageHandlerMethodFactory messageHandlerMethodFactory = new DefaultMessageHandlerMethodFactory();
+        messageHandlerMethodFactory.afterPropertiesSet();
+        Method method = ReflectionUtils.findMethod(PayrollRetryConsumer.class, "consumeRetry",
+                ConsumerRecord.class, Acknowledgment.class);
+        
+        for (String topic : failedRecordPublisher.getRetryTopics()) {
+            MethodKafkaListenerEndpoint<String, Object> endpoint = new MethodKafkaListenerEndpoint<>();
+            endpoint.setId(topic);
+            endpoint.setGroupId(groupId + "-retry");
+            endpoint.setTopics(topic);
+            endpoint.setBean(this);
+            endpoint.setMethod(method);
+            endpoint.setMessageHandlerMethodFactory(messageHandlerMethodFactory);
+            registrar.registerEndpoint(endpoint, retryKafkaListenerContainerFactory);
+        }
+    }
+    
+    public void consumeRetry(ConsumerRecord<String, Object> record, Acknowledgment acknowledgment) {
+        long waitMillis = longHeader(record, FailedRecordPublisher.DUE_AT_HEADER) - System.currentTimeMillis();
+        if (waitMillis > 0) {
+            // Redelivered once the container has been paused for the rest of the delay
+            acknowledgment.nack(Duration.ofMillis(waitMillis));
+            return;
+        }
+        
+        int tier = (int) longHeader(record, FailedRecordPublisher.TIER_HEADER);
+        // Records published before the header existed fall back to when they entered the retry topic
+        long receivedAtMillis = record.headers().lastHeader(FailedRecordPublisher.RECEIVED_AT_HEADER) == null
+                ? record.timestamp()
+                : longHeader(record, FailedRecordPublisher.RECEIVED_AT_HEADER);
+        for (PayrollData payrollData : PayrollEnvelope.unpack(record.value())) {
+            String outcome = "success";
+            try {
+                if (payrollService.processRetriedPayrollData(payrollData, receivedAtMillis)) {
+                    log.info("[CONSUMER] ✅ Retry {} succeeded for Employee ID: {}", tier + 1, payrollData.getEmployeeId());
+                } else {
+                    outcome = "superseded";
+                }
+            } catch (Exception e) {
+                outcome = "error";
+                log.error("[CONSUMER] ❌ Retry {} failed for Employee ID: {}", tier + 1, payrollData.getEmployeeId(), e);
+                failedRecordPublisher.publish(payrollData, e, tier + 1, receivedAtMillis);
+            } finally {
+                meterRegistry.counter("payroll.consumer.retries", "tier", Integer.toString(tier), "outcome", outcome)
+                        .increment();
+            }
+        }
+        acknowledgment.acknowledge();
+    }
+    
+    private static long longHeader(ConsumerRecord<String, Object> record, String name) {
+        Header header = record.headers().lastHeader(name);
+        return header == null ? 0 : Long.parseLong(new String(header.value(), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,46 @@
+package com.payroll.consumer.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Next Kafka offset to read per partition, written in the same transaction as the data of the exactly-once
+// listener (see ConsumerOffsetRepository); the offsets committed to Kafka only serve lag monitoring there
+@Entity
+@Table(name = "consumer_offsets",
+    uniqueConstraints = {
+        @UniqueConstraint(
+            name = "uk_consumer_offset_group_topic_partition",
+            columnNames = {"consumerGroup", "topic", "partitionId"}
+        )
+    }
+)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ConsumerOffset {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false)
+    private String consumerGroup;
+    
+    @Column(nullable = false)
+    private String topic;
+    
+    @Column(nullable = false)
+    private Integer partitionId;
+    
+    @Column(nullable = false)
+    private Long nextOffset;
+    
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,23 @@
+package com.payroll.consumer.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Rollup of employees per department, maintained by PayrollStatsService
+@Entity
+@Table(name = "department_stats")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DepartmentStats {
+    
+    @Id
+    private String department;
+    
+    @Column(nullable = false)
+    private Long employeeCount;
+}
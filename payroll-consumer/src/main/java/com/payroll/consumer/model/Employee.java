@@ -1,12 +1,12 @@
 package com.payroll.consumer.model;
 
+import com.payroll.common.dto.Money;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
@@ -40,16 +40,19 @@ public class Employee {
     private String position;
     
     @Column(nullable = false, precision = 15, scale = 2)
-    private BigDecimal baseSalary;
+    private Money baseSalary;
     
     @Column(precision = 15, scale = 2)
-    private BigDecimal allowances;
+    private Money allowances;
     
     @Column(precision = 15, scale = 2)
-    private BigDecimal deductions;
+    private Money deductions;
     
     @Column(precision = 15, scale = 2)
-    private BigDecimal netSalary;
+    private Money netSalary;
+    
+    // EmployeeFingerprintCache hash of the PayrollData this row was last written from
+    private Long fingerprint;
     
     @Column(nullable = false)
     private LocalDateTime createdAt;
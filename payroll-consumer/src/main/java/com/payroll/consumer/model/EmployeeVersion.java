@@ -0,0 +1,24 @@
+package com.payroll.consumer.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Change counter per employee, bumped in every transaction that writes the employee or its payroll records
+// (see EmployeeVersionRepository); EmployeeLookupService checks its cached entries against it
+@Entity
+@Table(name = "employee_versions")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EmployeeVersion {
+    
+    @Id
+    private String employeeId;
+    
+    @Column(nullable = false)
+    private Long version;
+}
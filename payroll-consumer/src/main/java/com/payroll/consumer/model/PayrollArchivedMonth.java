@@ -0,0 +1,32 @@
+package com.payroll.consumer.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// A month of payroll_records moved into its archive file (see PayrollArchiveService), keyed by the month's first day
+@Entity
+@Table(name = "payroll_archived_months")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PayrollArchivedMonth {
+    
+    @Id
+    private LocalDate archivedMonth;
+    
+    @Column(nullable = false)
+    private String fileName;
+    
+    @Column(nullable = false)
+    private Long recordCount;
+    
+    @Column(nullable = false)
+    private LocalDateTime archivedAt;
+}
@@ -0,0 +1,30 @@
+package com.payroll.consumer.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Change counter per payroll date, bumped by PayrollService after the transaction that writes the date's records
+// has committed (see PayrollDateVersionRepository); the ETags of the date queries are derived from it
+@Entity
+@Table(name = "payroll_date_versions")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PayrollDateVersion {
+    
+    @Id
+    private LocalDate payrollDate;
+    
+    @Column(nullable = false)
+    private Long version;
+    
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -1,12 +1,13 @@
 package com.payroll.consumer.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.payroll.common.dto.Money;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
@@ -39,16 +40,16 @@ public class PayrollRecord {
     private String department;
     
     @Column(nullable = false, precision = 15, scale = 2)
-    private BigDecimal baseSalary;
+    private Money baseSalary;
     
     @Column(precision = 15, scale = 2)
-    private BigDecimal allowances;
+    private Money allowances;
     
     @Column(precision = 15, scale = 2)
-    private BigDecimal deductions;
+    private Money deductions;
     
     @Column(precision = 15, scale = 2)
-    private BigDecimal netSalary;
+    private Money netSalary;
     
     @Column(nullable = false)
     private LocalDate payrollDate;
@@ -59,6 +60,11 @@ public class PayrollRecord {
     @Column(nullable = false)
     private LocalDateTime createdAt;
     
+    // When the main listener took in this data (epoch millis, see PayrollService.nextReceivedAt); a record applied
+    // from a retry topic keeps its first attempt's time
+    @JsonIgnore
+    private Long receivedAt;
+    
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -0,0 +1,63 @@
+package com.payroll.consumer.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Rollup of payroll records per date, department and status, maintained by PayrollStatsService
+@Entity
+@Table(name = "payroll_rollups",
+    uniqueConstraints = {
+        @UniqueConstraint(
+            name = "uk_rollup_date_department_status",
+            columnNames = {"payrollDate", "department", "status"}
+        )
+    }
+)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PayrollRollup {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false)
+    private LocalDate payrollDate;
+    
+    @Column(nullable = false)
+    private String department;
+    
+    @Column(nullable = false)
+    private String status;
+    
+    @Column(nullable = false)
+    private Long recordCount;
+    
+    // Records that replaced one already stored for the same employee and date (cumulative, not recomputed by a rebuild)
+    @Column(nullable = false)
+    private Long resubmittedCount;
+    
+    // Records whose net salary is not base salary + allowances - deductions
+    @Column(nullable = false)
+    private Long anomalyCount;
+    
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal totalBaseSalary;
+    
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal totalAllowances;
+    
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal totalDeductions;
+    
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal totalNetSalary;
+}
@@ -0,0 +1,63 @@
+package com.payroll.consumer.repository;
+
+import com.payroll.consumer.dto.PartitionOffsets;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+// Kafka offsets kept in consumer_offsets by the exactly-once listener, inside the caller's transaction
+@Repository
+@RequiredArgsConstructor
+@Timed("payroll.jdbc")
+public class ConsumerOffsetRepository {
+    
+    // Only moves forward from where the stored offset stands, so a consumer that lost its partition in a
+    // rebalance cannot commit a poll the new owner has already written
+    private static final String ADVANCE_OFFSET =
+            "UPDATE consumer_offsets SET next_offset = ?, updated_at = ? "
+            + "WHERE consumer_group = ? AND topic = ? AND partition_id = ? AND next_offset <= ?";
+    
+    private static final String INSERT_OFFSET =
+            "INSERT INTO consumer_offsets (consumer_group, topic, partition_id, next_offset, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?)";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    // partition -> next offset to read
+    public Map<Integer, Long> findOffsets(String consumerGroup, String topic) {
+        Map<Integer, Long> offsets = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT partition_id, next_offset FROM consumer_offsets WHERE consumer_group = ? AND topic = ?",
+                rs -> {
+                    offsets.put(rs.getInt("partition_id"), rs.getLong("next_offset"));
+                },
+                consumerGroup, topic);
+        return offsets;
+    }
+    
+    public void advance(String consumerGroup, Collection<PartitionOffsets> offsets) {
+        LocalDateTime now = LocalDateTime.now();
+        for (PartitionOffsets partitionOffsets : offsets) {
+            int updated = jdbcTemplate.update(ADVANCE_OFFSET, partitionOffsets.getNextOffset(), now, consumerGroup,
+                    partitionOffsets.getTopic(), partitionOffsets.getPartition(), partitionOffsets.getFirstOffset());
+            if (updated == 1) {
+                continue;
+            }
+            try {
+                jdbcTemplate.update(INSERT_OFFSET, consumerGroup, partitionOffsets.getTopic(),
+                        partitionOffsets.getPartition(), partitionOffsets.getNextOffset(), now);
+            } catch (DuplicateKeyException e) {
+                throw new OptimisticLockingFailureException("Offset of " + partitionOffsets.getTopic() + "-"
+                        + partitionOffsets.getPartition() + " is already stored past " + partitionOffsets.getFirstOffset(), e);
+            }
+        }
+    }
+}
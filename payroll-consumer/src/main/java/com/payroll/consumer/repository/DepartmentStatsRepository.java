@@ -0,0 +1,9 @@
+package com.payroll.consumer.repository;
+
+import com.payroll.consumer.model.DepartmentStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface DepartmentStatsRepository extends JpaRepository<DepartmentStats, String> {
+}
@@ -1,13 +1,20 @@
 package com.payroll.consumer.repository;
 
 import com.payroll.consumer.model.Employee;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface EmployeeRepository extends JpaRepository<Employee, Long> {
     Optional<Employee> findByEmployeeId(String employeeId);
     boolean existsByEmployeeId(String employeeId);
+    List<Employee> findByEmployeeIdIn(Collection<String> employeeIds);
+    
+    // Keyset pagination: next page after the last id the caller has seen
+    List<Employee> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
 }
@@ -0,0 +1,45 @@
+package com.payroll.consumer.repository;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+// Change counters in employee_versions. Unlike the date versions these are bumped inside the writer's transaction:
+// an employee's records come in on one partition, so hardly any other writer queues behind the row lock, and the
+// bump commits or rolls back with the write it stands for.
+@Repository
+@RequiredArgsConstructor
+@Timed("payroll.jdbc")
+public class EmployeeVersionRepository {
+    
+    private static final int ROWS_PER_STATEMENT = 500;
+    
+    private static final String BUMP_VERSIONS = "INSERT INTO employee_versions (employee_id, version) VALUES ";
+    private static final String ON_DUPLICATE_VERSION = " ON DUPLICATE KEY UPDATE version = version + 1";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    // IDs in order, so two bumps of the same employees cannot deadlock
+    public void bump(Collection<String> employeeIds) {
+        List<String> sorted = new ArrayList<>(new TreeSet<>(employeeIds));
+        for (int i = 0; i < sorted.size(); i += ROWS_PER_STATEMENT) {
+            List<String> chunk = sorted.subList(i, Math.min(i + ROWS_PER_STATEMENT, sorted.size()));
+            jdbcTemplate.update(BUMP_VERSIONS + String.join(", ", Collections.nCopies(chunk.size(), "(?, 1)"))
+                    + ON_DUPLICATE_VERSION, chunk.toArray());
+        }
+    }
+    
+    // 0 for an employee that has never been written
+    public long findVersion(String employeeId) {
+        List<Long> versions = jdbcTemplate.queryForList(
+                "SELECT version FROM employee_versions WHERE employee_id = ?", Long.class, employeeId);
+        return versions.isEmpty() ? 0 : versions.get(0);
+    }
+}
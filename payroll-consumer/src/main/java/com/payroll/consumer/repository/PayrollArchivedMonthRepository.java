@@ -0,0 +1,13 @@
+package com.payroll.consumer.repository;
+
+import com.payroll.consumer.model.PayrollArchivedMonth;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface PayrollArchivedMonthRepository extends JpaRepository<PayrollArchivedMonth, LocalDate> {
+    List<PayrollArchivedMonth> findAllByOrderByArchivedMonthAsc();
+}
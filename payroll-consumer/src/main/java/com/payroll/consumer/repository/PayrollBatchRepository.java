@@ -0,0 +1,208 @@
+package com.payroll.consumer.repository;
+
+import com.payroll.common.dto.Money;
+import com.payroll.common.dto.PayrollData;
+import com.payroll.consumer.model.PayrollRecord;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Multi-row JDBC writes for the batch listener; column names follow Hibernate's snake_case naming
+@Repository
+@RequiredArgsConstructor
+@Timed("payroll.jdbc")
+public class PayrollBatchRepository {
+    
+    private static final int ROWS_PER_STATEMENT = 500;
+    
+    private static final String INSERT_EMPLOYEES =
+            "INSERT INTO employees (employee_id, first_name, last_name, email, department, position, "
+            + "base_salary, allowances, deductions, net_salary, fingerprint, created_at, updated_at) VALUES ";
+    private static final String EMPLOYEE_ROW = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    private static final String UPDATE_EMPLOYEE =
+            "UPDATE employees SET first_name = ?, last_name = ?, email = ?, department = ?, position = ?, "
+            + "base_salary = ?, allowances = ?, deductions = ?, net_salary = ?, fingerprint = ?, updated_at = ? "
+            + "WHERE employee_id = ?";
+    
+    private static final String UPSERT_PAYROLL_RECORDS =
+            "INSERT INTO payroll_records (employee_id, employee_name, department, base_salary, allowances, "
+            + "deductions, net_salary, payroll_date, status, created_at, received_at) VALUES ";
+    private static final String PAYROLL_RECORD_ROW = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    // Conflicts on uk_employee_payroll_date; employee_name and created_at keep their first values
+    private static final String ON_DUPLICATE_PAYROLL_RECORD =
+            " ON DUPLICATE KEY UPDATE department = VALUES(department), base_salary = VALUES(base_salary), "
+            + "allowances = VALUES(allowances), deductions = VALUES(deductions), "
+            + "net_salary = VALUES(net_salary), status = VALUES(status), received_at = VALUES(received_at)";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    // employee_id -> current department, for the employees that already exist
+    public Map<String, String> findEmployeeDepartments(Collection<String> employeeIds) {
+        Map<String, String> departments = new HashMap<>();
+        for (List<String> chunk : chunks(new ArrayList<>(employeeIds))) {
+            jdbcTemplate.query(
+                    "SELECT employee_id, department FROM employees WHERE employee_id IN (" + placeholders(chunk.size()) + ")",
+                    rs -> {
+                        departments.put(rs.getString("employee_id"), rs.getString("department"));
+                    },
+                    chunk.toArray());
+        }
+        return departments;
+    }
+    
+    // employee_id -> stored fingerprint (null for a row written without one), read with a row lock: the latest
+    // committed value, and no other transaction can change it before this one commits
+    public Map<String, Long> lockEmployeeFingerprints(Collection<String> employeeIds) {
+        Map<String, Long> fingerprints = new HashMap<>();
+        for (List<String> chunk : chunks(new ArrayList<>(employeeIds))) {
+            jdbcTemplate.query(
+                    "SELECT employee_id, fingerprint FROM employees WHERE employee_id IN (" + placeholders(chunk.size())
+                    + ") FOR UPDATE",
+                    rs -> {
+                        fingerprints.put(rs.getString("employee_id"), rs.getObject("fingerprint", Long.class));
+                    },
+                    chunk.toArray());
+        }
+        return fingerprints;
+    }
+    
+    // employee_id -> payroll record already stored for the date, with the fields the rollups are built from
+    public Map<String, PayrollRecord> findPayrollRecords(Collection<String> employeeIds, LocalDate payrollDate) {
+        Map<String, PayrollRecord> records = new HashMap<>();
+        for (List<String> chunk : chunks(new ArrayList<>(employeeIds))) {
+            List<Object> args = new ArrayList<>(chunk.size() + 1);
+            args.add(payrollDate);
+            args.addAll(chunk);
+            jdbcTemplate.query(
+                    "SELECT employee_id, department, base_salary, allowances, deductions, net_salary, status "
+                    + "FROM payroll_records WHERE payroll_date = ? AND employee_id IN (" + placeholders(chunk.size()) + ")",
+                    rs -> {
+                        records.put(rs.getString("employee_id"), PayrollRecord.builder()
+                                .employeeId(rs.getString("employee_id"))
+                                .department(rs.getString("department"))
+                                .baseSalary(money(rs.getBigDecimal("base_salary")))
+                                .allowances(money(rs.getBigDecimal("allowances")))
+                                .deductions(money(rs.getBigDecimal("deductions")))
+                                .netSalary(money(rs.getBigDecimal("net_salary")))
+                                .payrollDate(payrollDate)
+                                .status(rs.getString("status"))
+                                .build());
+                    },
+                    args.toArray());
+        }
+        return records;
+    }
+    
+    public void insertEmployees(List<PayrollData> rows, Map<String, Long> fingerprints) {
+        LocalDateTime now = LocalDateTime.now();
+        for (List<PayrollData> chunk : chunks(rows)) {
+            List<Object> args = new ArrayList<>(chunk.size() * 13);
+            for (PayrollData data : chunk) {
+                args.add(data.getEmployeeId());
+                args.add(data.getFirstName());
+                args.add(data.getLastName());
+                args.add(data.getEmail());
+                args.add(data.getDepartment());
+                args.add(data.getPosition());
+                args.add(decimal(data.getBaseSalary()));
+                args.add(decimal(data.getAllowances()));
+                args.add(decimal(data.getDeductions()));
+                args.add(decimal(data.getNetSalary()));
+                args.add(fingerprints.get(data.getEmployeeId()));
+                args.add(now);
+                args.add(now);
+            }
+            jdbcTemplate.update(INSERT_EMPLOYEES + rowsSql(EMPLOYEE_ROW, chunk.size()), args.toArray());
+        }
+    }
+    
+    public void updateEmployees(List<PayrollData> rows, Map<String, Long> fingerprints) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> batchArgs = new ArrayList<>(rows.size());
+        for (PayrollData data : rows) {
+            batchArgs.add(new Object[] {
+                    data.getFirstName(),
+                    data.getLastName(),
+                    data.getEmail(),
+                    data.getDepartment(),
+                    data.getPosition(),
+                    decimal(data.getBaseSalary()),
+                    decimal(data.getAllowances()),
+                    decimal(data.getDeductions()),
+                    decimal(data.getNetSalary()),
+                    fingerprints.get(data.getEmployeeId()),
+                    now,
+                    data.getEmployeeId()
+            });
+        }
+        jdbcTemplate.batchUpdate(UPDATE_EMPLOYEE, batchArgs);
+    }
+    
+    public void upsertPayrollRecords(List<PayrollData> rows, LocalDate payrollDate, String status, long receivedAt) {
+        LocalDateTime now = LocalDateTime.now();
+        for (List<PayrollData> chunk : chunks(rows)) {
+            List<Object> args = new ArrayList<>(chunk.size() * 11);
+            for (PayrollData data : chunk) {
+                args.add(data.getEmployeeId());
+                args.add(data.getFullName());
+                args.add(data.getDepartment());
+                args.add(decimal(data.getBaseSalary()));
+                args.add(decimal(data.getAllowances()));
+                args.add(decimal(data.getDeductions()));
+                args.add(decimal(data.getNetSalary()));
+                args.add(payrollDate);
+                args.add(status);
+                args.add(now);
+                args.add(receivedAt);
+            }
+            jdbcTemplate.update(UPSERT_PAYROLL_RECORDS + rowsSql(PAYROLL_RECORD_ROW, chunk.size())
+                    + ON_DUPLICATE_PAYROLL_RECORD, args.toArray());
+        }
+    }
+    
+    // Newest received_at among the employee's payroll records. The record of payrollDate (or the gap it would be
+    // inserted into) is locked first, so a write of that record by another transaction waits for the caller's.
+    public Long lockNewestReceivedAt(String employeeId, LocalDate payrollDate) {
+        jdbcTemplate.queryForList(
+                "SELECT id FROM payroll_records WHERE employee_id = ? AND payroll_date = ? FOR UPDATE",
+                Long.class, employeeId, payrollDate);
+        return jdbcTemplate.queryForObject(
+                "SELECT MAX(received_at) FROM payroll_records WHERE employee_id = ?", Long.class, employeeId);
+    }
+    
+    private static BigDecimal decimal(Money amount) {
+        return amount == null ? null : amount.toBigDecimal();
+    }
+    
+    private static Money money(BigDecimal value) {
+        return value == null ? null : Money.of(value);
+    }
+    
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+    
+    private static String rowsSql(String row, int count) {
+        return String.join(", ", Collections.nCopies(count, row));
+    }
+    
+    private static <T> List<List<T>> chunks(List<T> rows) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i += ROWS_PER_STATEMENT) {
+            chunks.add(rows.subList(i, Math.min(i + ROWS_PER_STATEMENT, rows.size())));
+        }
+        return chunks;
+    }
+}
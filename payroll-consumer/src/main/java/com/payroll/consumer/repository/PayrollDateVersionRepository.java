@@ -0,0 +1,45 @@
+package com.payroll.consumer.repository;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+// Change counters in payroll_date_versions. Every write of a date bumps its row, so the bump runs in a short
+// transaction of its own after the writer's has committed (see PayrollService): inside the writer's transaction
+// the row lock would be held until its commit and all writers of the date would queue behind each other.
+@Repository
+@RequiredArgsConstructor
+@Timed("payroll.jdbc")
+public class PayrollDateVersionRepository {
+    
+    private static final String BUMP_VERSION =
+            "INSERT INTO payroll_date_versions (payroll_date, version, updated_at) VALUES (?, 1, ?) "
+            + "ON DUPLICATE KEY UPDATE version = version + 1, updated_at = VALUES(updated_at)";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    // Dates in order, so two bumps of the same dates cannot deadlock
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void bump(Collection<LocalDate> payrollDates) {
+        LocalDateTime now = LocalDateTime.now();
+        for (LocalDate payrollDate : new TreeSet<>(payrollDates)) {
+            jdbcTemplate.update(BUMP_VERSION, payrollDate, now);
+        }
+    }
+    
+    // 0 for a date that has never been written
+    public long findVersion(LocalDate payrollDate) {
+        List<Long> versions = jdbcTemplate.queryForList(
+                "SELECT version FROM payroll_date_versions WHERE payroll_date = ?", Long.class, payrollDate);
+        return versions.isEmpty() ? 0 : versions.get(0);
+    }
+}
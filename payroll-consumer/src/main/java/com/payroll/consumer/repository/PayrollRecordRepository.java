@@ -1,10 +1,16 @@
 package com.payroll.consumer.repository;
 
+import com.payroll.consumer.dto.DuplicateGroup;
 import com.payroll.consumer.model.PayrollRecord;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -13,6 +19,23 @@ public interface PayrollRecordRepository extends JpaRepository<PayrollRecord, Lo
     List<PayrollRecord> findByPayrollDate(LocalDate payrollDate);
     List<PayrollRecord> findByStatus(String status);
     
+    // Keyset pagination: next page after the last id the caller has seen
+    List<PayrollRecord> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+    
+    // Same, limited to payroll dates in [from, until), e.g. one month partition
+    @Query("SELECT r FROM PayrollRecord r WHERE r.payrollDate >= :from AND r.payrollDate < :until AND r.id > :afterId ORDER BY r.id")
+    List<PayrollRecord> findByPayrollDateRangeAfterId(@Param("from") LocalDate from, @Param("until") LocalDate until,
+                                                      @Param("afterId") Long afterId, Pageable pageable);
+    
+    List<PayrollRecord> findByEmployeeIdInAndPayrollDateBetween(Collection<String> employeeIds, LocalDate from, LocalDate to);
+    
+    // Rows that break the employee/date uniqueness, e.g. in tables created before uk_employee_payroll_date
+    @Query("SELECT new com.payroll.consumer.dto.DuplicateGroup(r.employeeId, r.payrollDate, COUNT(r)) "
+            + "FROM PayrollRecord r WHERE r.payrollDate BETWEEN :from AND :to "
+            + "GROUP BY r.employeeId, r.payrollDate HAVING COUNT(r) > 1 "
+            + "ORDER BY r.payrollDate, r.employeeId")
+    Slice<DuplicateGroup> findDuplicateGroups(@Param("from") LocalDate from, @Param("to") LocalDate to, Pageable pageable);
+    
     // For idempotent duplicate prevention
     java.util.Optional<PayrollRecord> findByEmployeeIdAndPayrollDate(String employeeId, LocalDate payrollDate);
 }
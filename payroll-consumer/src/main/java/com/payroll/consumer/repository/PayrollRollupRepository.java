@@ -0,0 +1,33 @@
+package com.payroll.consumer.repository;
+
+import com.payroll.consumer.dto.DepartmentTotals;
+import com.payroll.consumer.dto.RollupCounts;
+import com.payroll.consumer.model.PayrollRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface PayrollRollupRepository extends JpaRepository<PayrollRollup, Long> {
+    List<PayrollRollup> findByPayrollDateBetweenAndRecordCountGreaterThanOrderByPayrollDateAscDepartmentAscStatusAsc(
+            LocalDate from, LocalDate to, long recordCount);
+    
+    @Query("SELECT new com.payroll.consumer.dto.RollupCounts(COALESCE(SUM(r.recordCount), 0), "
+            + "COALESCE(SUM(r.resubmittedCount), 0), COALESCE(SUM(r.anomalyCount), 0)) FROM PayrollRollup r")
+    RollupCounts sumCounts();
+    
+    @Query("SELECT new com.payroll.consumer.dto.RollupCounts(COALESCE(SUM(r.recordCount), 0), "
+            + "COALESCE(SUM(r.resubmittedCount), 0), COALESCE(SUM(r.anomalyCount), 0)) "
+            + "FROM PayrollRollup r WHERE r.payrollDate BETWEEN :from AND :to")
+    RollupCounts sumCounts(@Param("from") LocalDate from, @Param("to") LocalDate to);
+    
+    @Query("SELECT new com.payroll.consumer.dto.DepartmentTotals(r.department, SUM(r.recordCount), "
+            + "SUM(r.totalBaseSalary), SUM(r.totalAllowances), SUM(r.totalDeductions), SUM(r.totalNetSalary)) "
+            + "FROM PayrollRollup r WHERE r.payrollDate BETWEEN :from AND :to "
+            + "GROUP BY r.department HAVING SUM(r.recordCount) > 0 ORDER BY r.department")
+    List<DepartmentTotals> sumByDepartment(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
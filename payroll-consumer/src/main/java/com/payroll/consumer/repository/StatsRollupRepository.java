@@ -0,0 +1,106 @@
+package com.payroll.consumer.repository;
+
+import com.payroll.consumer.model.PayrollRollup;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+// Additive JDBC upserts into the rollup tables, plus the full rebuild from the base tables
+@Repository
+@RequiredArgsConstructor
+@Timed("payroll.jdbc")
+public class StatsRollupRepository {
+    
+    private static final String ADD_EMPLOYEE_COUNT =
+            "INSERT INTO department_stats (department, employee_count) VALUES (?, ?) "
+            + "ON DUPLICATE KEY UPDATE employee_count = employee_count + VALUES(employee_count)";
+    
+    private static final String ADD_PAYROLL_TOTALS =
+            "INSERT INTO payroll_rollups (payroll_date, department, status, record_count, resubmitted_count, "
+            + "anomaly_count, total_base_salary, total_allowances, total_deductions, total_net_salary) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE record_count = record_count + VALUES(record_count), "
+            + "resubmitted_count = resubmitted_count + VALUES(resubmitted_count), "
+            + "anomaly_count = anomaly_count + VALUES(anomaly_count), "
+            + "total_base_salary = total_base_salary + VALUES(total_base_salary), "
+            + "total_allowances = total_allowances + VALUES(total_allowances), "
+            + "total_deductions = total_deductions + VALUES(total_deductions), "
+            + "total_net_salary = total_net_salary + VALUES(total_net_salary)";
+    
+    private static final String REBUILD_DEPARTMENT_STATS =
+            "INSERT INTO department_stats (department, employee_count) "
+            + "SELECT department, COUNT(*) FROM employees GROUP BY department";
+    
+    private static final String REBUILD_PAYROLL_ROLLUPS =
+            "INSERT INTO payroll_rollups (payroll_date, department, status, record_count, resubmitted_count, "
+            + "anomaly_count, total_base_salary, total_allowances, total_deductions, total_net_salary) "
+            + "SELECT payroll_date, department, status, COUNT(*), 0, "
+            + "SUM(CASE WHEN net_salary <> base_salary + COALESCE(allowances, 0) - COALESCE(deductions, 0) "
+            + "THEN 1 ELSE 0 END), COALESCE(SUM(base_salary), 0), "
+            + "COALESCE(SUM(allowances), 0), COALESCE(SUM(deductions), 0), COALESCE(SUM(net_salary), 0) "
+            + "FROM payroll_records";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    public void addEmployeeCounts(Map<String, Long> deltas) {
+        List<Object[]> batchArgs = new ArrayList<>(deltas.size());
+        deltas.forEach((department, delta) -> batchArgs.add(new Object[] {department, delta}));
+        jdbcTemplate.batchUpdate(ADD_EMPLOYEE_COUNT, batchArgs);
+    }
+    
+    public void addPayrollTotals(Collection<PayrollRollup> deltas) {
+        List<Object[]> batchArgs = new ArrayList<>(deltas.size());
+        for (PayrollRollup delta : deltas) {
+            batchArgs.add(new Object[] {
+                    delta.getPayrollDate(),
+                    delta.getDepartment(),
+                    delta.getStatus(),
+                    delta.getRecordCount(),
+                    delta.getResubmittedCount(),
+                    delta.getAnomalyCount(),
+                    delta.getTotalBaseSalary(),
+                    delta.getTotalAllowances(),
+                    delta.getTotalDeductions(),
+                    delta.getTotalNetSalary()
+            });
+        }
+        jdbcTemplate.batchUpdate(ADD_PAYROLL_TOTALS, batchArgs);
+    }
+    
+    // Resubmission counts only exist as events on the write path, so a rebuild starts them again from zero.
+    // INSERT ... SELECT takes shared locks on the scanned rows, so writers wait until the rebuild commits.
+    // The records of archived months are no longer in MySQL, so their rollups are kept as they are.
+    public void rebuild(List<YearMonth> archivedMonths) {
+        jdbcTemplate.update("DELETE FROM department_stats");
+        jdbcTemplate.update(REBUILD_DEPARTMENT_STATS);
+        List<Object> args = new ArrayList<>();
+        String notArchived = excludingMonths(archivedMonths, args);
+        jdbcTemplate.update("DELETE FROM payroll_rollups" + notArchived, args.toArray());
+        jdbcTemplate.update(REBUILD_PAYROLL_ROLLUPS + notArchived + " GROUP BY payroll_date, department, status",
+                args.toArray());
+    }
+    
+    // WHERE clause leaving out the given months, a run of consecutive months as one range; empty for no months
+    private static String excludingMonths(List<YearMonth> months, List<Object> args) {
+        List<YearMonth> sorted = months.stream().sorted().toList();
+        StringJoiner conditions = new StringJoiner(" AND ", " WHERE ", "").setEmptyValue("");
+        for (int first = 0, last; first < sorted.size(); first = last + 1) {
+            last = first;
+            while (last + 1 < sorted.size() && sorted.get(last + 1).equals(sorted.get(last).plusMonths(1))) {
+                last++;
+            }
+            conditions.add("payroll_date NOT BETWEEN ? AND ?");
+            args.add(sorted.get(first).atDay(1));
+            args.add(sorted.get(last).atEndOfMonth());
+        }
+        return conditions.toString();
+    }
+}
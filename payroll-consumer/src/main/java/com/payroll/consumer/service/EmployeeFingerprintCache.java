@@ -0,0 +1,301 @@
+package com.payroll.consumer.service;
+
+import com.payroll.common.dto.Money;
+import com.payroll.common.dto.PayrollData;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Last written fingerprint per employee, so unchanged master data skips the UPDATE. A hit is only a hint: the
+// retry tiers of another instance may have written the employee since, so PayrollService confirms it against the
+// stored fingerprint under the employee row lock before skipping.
+// Keys are 64-bit hashes of the employeeId in open-addressing long -> long tables (24 bytes per slot with the
+// put sequence), split into segments with a lock each so the listener threads do not queue on one monitor.
+// The fingerprint itself covers the employeeId, so a key collision only costs an extra write, never a wrong skip.
+// Only this JVM's writes are put here, so the whole cache is reloaded from the employees table whenever this
+// instance is assigned partitions (their employees may have been written by another instance meanwhile) and
+// every refresh-interval-ms. The reload hashes each row's columns instead of reading the stored fingerprint,
+// so a manual edit of a row is noticed too.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@DependsOn("entityManagerFactory") // the fingerprint column must exist before warm-up
+public class EmployeeFingerprintCache {
+    
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long EMPTY = 0;
+    private static final int SEGMENT_BITS = 6;
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    private final AtomicReferenceArray<Segment> segments = newSegments();
+    private final AtomicLong putSequence = new AtomicLong();
+    private final ReentrantLock reloadLock = new ReentrantLock();
+    private long lastReloadNanos;
+    
+    // Runs before the listener containers start, so no write can commit ahead of the warm-up
+    @PostConstruct
+    void warmUp() {
+        reload();
+    }
+    
+    @Scheduled(fixedDelayString = "${payroll.fingerprint-cache.refresh-interval-ms:600000}",
+            initialDelayString = "${payroll.fingerprint-cache.refresh-interval-ms:600000}")
+    void refresh() {
+        reload();
+    }
+    
+    // Replaces the cache with the fingerprints of the rows as they are now. Puts that land while the rows are
+    // read are carried over, they are at least as new as what the read saw. Callers that queue up behind a
+    // running reload share the next one.
+    public void reload() {
+        long requestedNanos = System.nanoTime();
+        reloadLock.lock();
+        try {
+            if (lastReloadNanos - requestedNanos > 0) {
+                return;
+            }
+            lastReloadNanos = System.nanoTime();
+            long sequence = putSequence.get();
+            
+            AtomicReferenceArray<Segment> loaded = newSegments();
+            jdbcTemplate.query(
+                    "SELECT employee_id, first_name, last_name, email, department, position, "
+                            + "base_salary, allowances, deductions, net_salary FROM employees",
+                    rs -> {
+                        PayrollData row = PayrollData.builder()
+                                .employeeId(rs.getString(1))
+                                .firstName(rs.getString(2))
+                                .lastName(rs.getString(3))
+                                .email(rs.getString(4))
+                                .department(rs.getString(5))
+                                .position(rs.getString(6))
+                                .baseSalary(toMoney(rs.getBigDecimal(7)))
+                                .allowances(toMoney(rs.getBigDecimal(8)))
+                                .deductions(toMoney(rs.getBigDecimal(9)))
+                                .netSalary(toMoney(rs.getBigDecimal(10)))
+                                .build();
+                        long key = keyOf(row.getEmployeeId());
+                        loaded.get(segmentOf(key)).put(key, fingerprint(row), 0);
+                    });
+            
+            int size = 0;
+            for (int i = 0; i < segments.length(); i++) {
+                Segment current = segments.get(i);
+                Segment replacement = loaded.get(i);
+                synchronized (current) {
+                    current.copyPutsSince(sequence, replacement);
+                    current.retired = true;
+                    segments.set(i, replacement);
+                }
+                size += replacement.size;
+            }
+            log.info("[CONSUMER] 🔑 Loaded {} employee fingerprints in {} ms",
+                    size, (System.nanoTime() - lastReloadNanos) / 1_000_000);
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+    
+    public boolean isUnchanged(String employeeId, long fingerprint) {
+        long key = keyOf(employeeId);
+        int index = segmentOf(key);
+        while (true) {
+            Segment segment = segments.get(index);
+            synchronized (segment) {
+                if (!segment.retired) {
+                    return segment.contains(key, fingerprint);
+                }
+            }
+        }
+    }
+    
+    // Published only once the transaction that wrote the fingerprints has committed
+    public void putAfterCommit(Map<String, Long> fingerprints) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            fingerprints.forEach(this::put);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                fingerprints.forEach(EmployeeFingerprintCache.this::put);
+            }
+        });
+    }
+    
+    public int size() {
+        int size = 0;
+        for (int i = 0; i < segments.length(); i++) {
+            Segment segment = segments.get(i);
+            synchronized (segment) {
+                size += segment.size;
+            }
+        }
+        return size;
+    }
+    
+    private void put(String employeeId, long fingerprint) {
+        long key = keyOf(employeeId);
+        int index = segmentOf(key);
+        while (true) {
+            Segment segment = segments.get(index);
+            synchronized (segment) {
+                // A reload swapped the segment out after it was looked up; put into its replacement instead
+                if (!segment.retired) {
+                    segment.put(key, fingerprint, putSequence.incrementAndGet());
+                    return;
+                }
+            }
+        }
+    }
+    
+    private static Money toMoney(BigDecimal amount) {
+        return amount == null ? null : Money.of(amount);
+    }
+    
+    private static AtomicReferenceArray<Segment> newSegments() {
+        AtomicReferenceArray<Segment> segments = new AtomicReferenceArray<>(1 << SEGMENT_BITS);
+        for (int i = 0; i < segments.length(); i++) {
+            segments.set(i, new Segment());
+        }
+        return segments;
+    }
+    
+    // The top bits pick the segment, the low bits the slot within it
+    private static int segmentOf(long key) {
+        return (int) (key >>> (Long.SIZE - SEGMENT_BITS));
+    }
+    
+    private static long keyOf(String employeeId) {
+        long key = mix(hash(FNV_OFFSET, employeeId));
+        return key == EMPTY ? 1 : key;
+    }
+    
+    // Hash of every field stored on the employee row
+    public static long fingerprint(PayrollData data) {
+        long h = FNV_OFFSET;
+        h = hash(h, data.getEmployeeId());
+        h = hash(h, data.getFirstName());
+        h = hash(h, data.getLastName());
+        h = hash(h, data.getEmail());
+        h = hash(h, data.getDepartment());
+        h = hash(h, data.getPosition());
+        h = hash(h, data.getBaseSalary());
+        h = hash(h, data.getAllowances());
+        h = hash(h, data.getDeductions());
+        h = hash(h, data.getNetSalary());
+        return mix(h);
+    }
+    
+    private static long hash(long h, Money amount) {
+        if (amount == null) {
+            return (h ^ 0xFF) * FNV_PRIME;
+        }
+        long cents = amount.cents();
+        for (int i = 0; i < 64; i += 8) {
+            h = (h ^ ((cents >>> i) & 0xFF)) * FNV_PRIME;
+        }
+        return (h ^ 0x1F) * FNV_PRIME;
+    }
+    
+    private static long hash(long h, String value) {
+        if (value == null) {
+            return (h ^ 0xFF) * FNV_PRIME;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            h = (h ^ value.charAt(i)) * FNV_PRIME;
+        }
+        // Field separator, so ("ab", "c") and ("a", "bc") differ
+        return (h ^ 0x1F) * FNV_PRIME;
+    }
+    
+    // MurmurHash3 finalizer: spreads FNV's weak low bits across the whole word
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+    
+    // Guarded by its own monitor
+    private static final class Segment {
+        
+        private long[] keys = new long[1 << 10];
+        private long[] values = new long[1 << 10];
+        private long[] sequences = new long[1 << 10];
+        private int size;
+        private boolean retired;
+        
+        private boolean contains(long key, long fingerprint) {
+            int mask = keys.length - 1;
+            for (int slot = (int) key & mask; keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return values[slot] == fingerprint;
+                }
+            }
+            return false;
+        }
+        
+        private void put(long key, long fingerprint, long sequence) {
+            if (size * 2 >= keys.length) {
+                resize();
+            }
+            int mask = keys.length - 1;
+            int slot = (int) key & mask;
+            while (keys[slot] != EMPTY && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (keys[slot] == EMPTY) {
+                keys[slot] = key;
+                size++;
+            }
+            values[slot] = fingerprint;
+            sequences[slot] = sequence;
+        }
+        
+        private void copyPutsSince(long sequence, Segment target) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != EMPTY && sequences[i] > sequence) {
+                    target.put(keys[i], values[i], sequences[i]);
+                }
+            }
+        }
+        
+        private void resize() {
+            long[] oldKeys = keys;
+            long[] oldValues = values;
+            long[] oldSequences = sequences;
+            keys = new long[oldKeys.length * 2];
+            values = new long[oldValues.length * 2];
+            sequences = new long[oldSequences.length * 2];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    int slot = (int) oldKeys[i] & mask;
+                    while (keys[slot] != EMPTY) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                    sequences[slot] = oldSequences[i];
+                }
+            }
+        }
+    }
+}
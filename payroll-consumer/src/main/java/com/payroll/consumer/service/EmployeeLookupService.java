@@ -0,0 +1,152 @@
+package com.payroll.consumer.service;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.payroll.consumer.model.Employee;
+import com.payroll.consumer.model.PayrollRecord;
+import com.payroll.consumer.repository.EmployeeRepository;
+import com.payroll.consumer.repository.EmployeeVersionRepository;
+import com.payroll.consumer.repository.PayrollRecordRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+// Cached read path for the per-employee API lookups. The write path never reads through
+// this cache; it only invalidates, see invalidateAfterWrite.
+// Writes may commit on any consumer instance, so each entry carries the employee's version from employee_versions
+// and a hit is only served while that is still the stored version: one primary key read instead of the rows.
+// A lookup that read an employee's row before a write committed must not cache it after the write's eviction,
+// so every invalidation bumps the employee's generation, and a lookup caches its result only if the generation
+// it saw before reading is still current. Check-and-put and bump-and-evict share one lock per stripe of employees.
+@Service
+@RequiredArgsConstructor
+public class EmployeeLookupService {
+    
+    public static final String EMPLOYEES_CACHE = "employees";
+    public static final String EMPLOYEE_PAYROLL_RECORDS_CACHE = "employeePayrollRecords";
+    
+    private static final int STRIPES = 1024;
+    
+    private final EmployeeRepository employeeRepository;
+    private final EmployeeVersionRepository employeeVersionRepository;
+    private final PayrollRecordRepository payrollRecordRepository;
+    private final CacheManager cacheManager;
+    
+    // Generation per stripe: a write to one employee also stops in-flight lookups of its stripe neighbours from
+    // caching, which only costs them a later cache miss
+    private final AtomicLongArray generations = new AtomicLongArray(STRIPES);
+    private final Object[] locks = newLocks();
+    
+    public Optional<Employee> findEmployee(String employeeId) {
+        return Optional.ofNullable(cached(EMPLOYEES_CACHE, employeeId,
+                () -> employeeRepository.findByEmployeeId(employeeId).orElse(null)));
+    }
+    
+    public List<PayrollRecord> findPayrollRecords(String employeeId) {
+        return cached(EMPLOYEE_PAYROLL_RECORDS_CACHE, employeeId,
+                () -> List.copyOf(payrollRecordRepository.findByEmployeeId(employeeId)));
+    }
+    
+    // Bumps the employees' versions in the writer's transaction, which invalidates the entries of every instance
+    // once it commits, and evicts this instance's entries then (right away without a transaction). Until then
+    // readers see the old committed row, and the generation check keeps whatever they load from being cached.
+    public void invalidateAfterWrite(Collection<String> employeeIds) {
+        employeeVersionRepository.bump(employeeIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(employeeIds);
+                }
+            });
+        } else {
+            invalidate(employeeIds);
+        }
+    }
+    
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (String name : List.of(EMPLOYEES_CACHE, EMPLOYEE_PAYROLL_RECORDS_CACHE)) {
+            if (cacheManager.getCache(name) instanceof CaffeineCache cache) {
+                CacheStats cacheStats = cache.getNativeCache().stats();
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("size", cache.getNativeCache().estimatedSize());
+                entry.put("hits", cacheStats.hitCount());
+                entry.put("misses", cacheStats.missCount());
+                entry.put("hitRate", cacheStats.hitRate());
+                entry.put("evictions", cacheStats.evictionCount());
+                stats.put(name, entry);
+            }
+        }
+        return stats;
+    }
+    
+    // Null results (unknown employee) are not cached
+    @SuppressWarnings("unchecked")
+    private <T> T cached(String cacheName, String employeeId, Supplier<T> loader) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return loader.get();
+        }
+        // Read before the rows, so an entry never carries a newer version than its value
+        long version = employeeVersionRepository.findVersion(employeeId);
+        Cache.ValueWrapper hit = cache.get(employeeId);
+        if (hit != null && hit.get() instanceof Versioned<?> entry && entry.version() == version) {
+            return (T) entry.value();
+        }
+        
+        int stripe = stripe(employeeId);
+        long generation = generations.get(stripe);
+        T value = loader.get();
+        if (value != null) {
+            synchronized (locks[stripe]) {
+                if (generations.get(stripe) == generation) {
+                    cache.put(employeeId, new Versioned<>(version, value));
+                }
+            }
+        }
+        return value;
+    }
+    
+    private void invalidate(Collection<String> employeeIds) {
+        Cache employees = cacheManager.getCache(EMPLOYEES_CACHE);
+        Cache payrollRecords = cacheManager.getCache(EMPLOYEE_PAYROLL_RECORDS_CACHE);
+        for (String employeeId : employeeIds) {
+            int stripe = stripe(employeeId);
+            synchronized (locks[stripe]) {
+                generations.incrementAndGet(stripe);
+                if (employees != null) {
+                    employees.evict(employeeId);
+                }
+                if (payrollRecords != null) {
+                    payrollRecords.evict(employeeId);
+                }
+            }
+        }
+    }
+    
+    private static int stripe(String employeeId) {
+        return Math.floorMod(employeeId.hashCode(), STRIPES);
+    }
+    
+    private record Versioned<T>(long version, T value) {
+    }
+    
+    private static Object[] newLocks() {
+        Object[] locks = new Object[STRIPES];
+        Arrays.setAll(locks, i -> new Object());
+        return locks;
+    }
+}
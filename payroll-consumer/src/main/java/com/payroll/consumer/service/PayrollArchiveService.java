@@ -0,0 +1,177 @@
+package com.payroll.consumer.service;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.payroll.consumer.model.PayrollArchivedMonth;
+import com.payroll.consumer.model.PayrollRecord;
+import com.payroll.consumer.repository.PayrollArchivedMonthRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Months of payroll_records that PayrollPartitionMaintenance has moved out of MySQL, one gzipped NDJSON file per
+// month (payroll_records_2024-01.ndjson.gz, same rows as /api/payroll-records/stream). A month is either still in
+// its partition or in its file, so the date queries read the file once the month is in payroll_archived_months.
+// That table is what every instance goes by; the directory must be storage they all share, and an instance that
+// cannot find a recorded file fails the read instead of answering as if the month were empty.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PayrollArchiveService {
+    
+    private static final String FILE_PREFIX = "payroll_records_";
+    private static final String FILE_SUFFIX = ".ndjson.gz";
+    
+    private final PayrollExportService payrollExportService;
+    private final PayrollArchivedMonthRepository payrollArchivedMonthRepository;
+    private final ObjectMapper objectMapper;
+    
+    @Value("${payroll.archive.directory:payroll-archive}")
+    private Path directory;
+    
+    public boolean isArchived(LocalDate payrollDate) {
+        return payrollArchivedMonthRepository.existsById(YearMonth.from(payrollDate).atDay(1));
+    }
+    
+    public List<PayrollRecord> findPayrollRecords(LocalDate payrollDate) {
+        return read(YearMonth.from(payrollDate), record -> payrollDate.equals(record.getPayrollDate()));
+    }
+    
+    public List<PayrollRecord> findPayrollRecords(String employeeId, LocalDate payrollDate) {
+        return read(YearMonth.from(payrollDate), record -> payrollDate.equals(record.getPayrollDate())
+                && employeeId.equals(record.getEmployeeId()));
+    }
+    
+    // Records of the given employees in [from, to] from every archived month in that range
+    public List<PayrollRecord> findPayrollRecords(Set<String> employeeIds, LocalDate from, LocalDate to) {
+        List<PayrollRecord> records = new ArrayList<>();
+        for (YearMonth month = YearMonth.from(from); !month.isAfter(YearMonth.from(to)); month = month.plusMonths(1)) {
+            if (isArchived(month.atDay(1))) {
+                records.addAll(read(month, record -> !record.getPayrollDate().isBefore(from)
+                        && !record.getPayrollDate().isAfter(to) && employeeIds.contains(record.getEmployeeId())));
+            }
+        }
+        return records;
+    }
+    
+    // Writes the month's payroll records to its archive file and returns how many there were, or -1 when that is
+    // not what storedCount reports after writing. The file is written under a temporary name and only moved into
+    // place and recorded once the counts match: from then on the month is read from the file, so a recorded file
+    // is always complete. A month without rows gets no file.
+    public long archive(YearMonth month, LongSupplier storedCount) throws IOException {
+        Files.createDirectories(directory);
+        Path tempFile = Files.createTempFile(directory, FILE_PREFIX + month, ".tmp");
+        try {
+            long written;
+            try (OutputStream out = new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                written = payrollExportService.writePayrollRecords(out, month.atDay(1), month.plusMonths(1).atDay(1));
+            }
+            long stored = storedCount.getAsLong();
+            if (written != stored) {
+                log.error("[CONSUMER] ❌ Archive of {} has {} records but MySQL has {}, discarding it",
+                        month, written, stored);
+                return -1;
+            }
+            if (written > 0) {
+                Files.move(tempFile, fileFor(month), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                payrollArchivedMonthRepository.save(new PayrollArchivedMonth(month.atDay(1),
+                        fileFor(month).getFileName().toString(), written, LocalDateTime.now()));
+            }
+            return written;
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+    
+    // Copies the month's records as plain NDJSON; false when the month is not archived
+    public boolean writeMonth(YearMonth month, OutputStream out) throws IOException {
+        if (!isArchived(month.atDay(1))) {
+            return false;
+        }
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(recordedFile(month)))) {
+            in.transferTo(out);
+        }
+        return true;
+    }
+    
+    // Oldest first
+    public List<YearMonth> archivedMonths() {
+        return payrollArchivedMonthRepository.findAllByOrderByArchivedMonthAsc().stream()
+                .map(archived -> YearMonth.from(archived.getArchivedMonth()))
+                .toList();
+    }
+    
+    // bytes is null when this instance cannot see the file
+    public List<Map<String, Object>> listArchives() {
+        List<Map<String, Object>> archives = new ArrayList<>();
+        for (PayrollArchivedMonth archived : payrollArchivedMonthRepository.findAllByOrderByArchivedMonthAsc()) {
+            Path file = directory.resolve(archived.getFileName());
+            Map<String, Object> archive = new LinkedHashMap<>();
+            archive.put("month", YearMonth.from(archived.getArchivedMonth()).toString());
+            archive.put("file", archived.getFileName());
+            archive.put("records", archived.getRecordCount());
+            archive.put("archivedAt", archived.getArchivedAt());
+            try {
+                archive.put("bytes", Files.exists(file) ? Files.size(file) : null);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            archives.add(archive);
+        }
+        return archives;
+    }
+    
+    private List<PayrollRecord> read(YearMonth month, Predicate<PayrollRecord> filter) {
+        Path file = recordedFile(month);
+        List<PayrollRecord> records = new ArrayList<>();
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file));
+             MappingIterator<PayrollRecord> rows = objectMapper.readerFor(PayrollRecord.class).readValues(in)) {
+            while (rows.hasNext()) {
+                PayrollRecord record = rows.next();
+                if (filter.test(record)) {
+                    records.add(record);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read payroll archive " + file, e);
+        }
+        log.debug("[CONSUMER] 📦 Read {} payroll records from archive {}", records.size(), file.getFileName());
+        return records;
+    }
+    
+    // The file of an archived month, which has to be there: its rows are not in MySQL any more
+    private Path recordedFile(YearMonth month) {
+        Path file = fileFor(month);
+        if (!Files.exists(file)) {
+            throw new IllegalStateException("Payroll archive " + file + " of " + month + " is not on this instance, "
+                    + "payroll.archive.directory must be shared by all consumer instances");
+        }
+        return file;
+    }
+    
+    private Path fileFor(YearMonth month) {
+        return directory.resolve(FILE_PREFIX + month + FILE_SUFFIX);
+    }
+}
@@ -0,0 +1,541 @@
+package com.payroll.consumer.service;
+
+import com.payroll.common.dto.Money;
+import com.payroll.common.dto.PayrollData;
+import com.payroll.consumer.dto.DateTotals;
+import com.payroll.consumer.dto.DepartmentTotals;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+// Optional in-memory copy of payroll_records laid out by column, for aggregates that should not touch MySQL.
+// One segment per payroll date, kept in a sorted map so a date range is a sub-map. Inside a segment every column
+// is a primitive array: employeeId, department and status as ids into shared dictionaries, amounts in cents.
+// An aggregate cuts the segments of its range into slices of SLICE_ROWS rows and sums them on a fork-join pool.
+// Commits are applied as they happen only for this instance's own writes. What other consumer instances write
+// arrives with the next reload, on every partition assignment and every refresh-interval-ms, so between reloads
+// the model lags behind MySQL by their writes. Archived months are dropped, it only holds what is still in MySQL.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@DependsOn("entityManagerFactory") // payroll_records must exist before warm-up
+public class PayrollColumnStore {
+    
+    private static final int LOAD_PAGE_SIZE = 10_000;
+    private static final int SLICE_ROWS = 1 << 16;
+    private static final int ALL = -1;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final PayrollArchiveService payrollArchiveService;
+    
+    @Value("${payroll.read-model.enabled:false}")
+    private boolean enabled;
+    
+    @Value("${payroll.read-model.parallelism:0}")
+    private int parallelism;
+    
+    private final Dictionary employees = new Dictionary();
+    private final Dictionary departments = new Dictionary();
+    private final Dictionary statuses = new Dictionary();
+    private volatile ConcurrentSkipListMap<LocalDate, Segment> segments = new ConcurrentSkipListMap<>();
+    private ForkJoinPool pool;
+    private ExecutorService reloadExecutor;
+    private final AtomicBoolean reloadRequested = new AtomicBoolean();
+    // Changes made while a reload reads the table, replayed onto the reloaded segments; guarded by itself
+    private final List<Consumer<ConcurrentSkipListMap<LocalDate, Segment>>> changesDuringReload = new ArrayList<>();
+    private boolean reloading;
+    private volatile long loadMillis;
+    
+    // Runs before the listener containers start, so no write can commit ahead of the warm-up
+    @PostConstruct
+    void warmUp() {
+        if (!enabled) {
+            return;
+        }
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        pool = new ForkJoinPool(threads);
+        reloadExecutor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "read-model-reload"));
+        reload();
+        
+        Gauge.builder("payroll.read-model.rows", this, PayrollColumnStore::rowCount)
+                .description("Payroll records held by the in-memory read model")
+                .register(meterRegistry);
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+            reloadExecutor.shutdownNow();
+        }
+    }
+    
+    // Reloads on the reload thread, off the caller's (a listener's poll thread on partition assignment); requests
+    // made before a pending reload has started share it
+    public void requestReload() {
+        if (enabled && reloadRequested.compareAndSet(false, true)) {
+            reloadExecutor.execute(() -> {
+                reloadRequested.set(false);
+                try {
+                    reload();
+                } catch (RuntimeException e) {
+                    log.error("[CONSUMER] ❌ Reloading the read model failed, keeping the previous one", e);
+                }
+            });
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${payroll.read-model.refresh-interval-ms:600000}",
+            initialDelayString = "${payroll.read-model.refresh-interval-ms:600000}")
+    void refresh() {
+        requestReload();
+    }
+    
+    // Removes the month's dates once its payroll_records partition has been archived and dropped
+    public void dropMonth(YearMonth month) {
+        if (!enabled) {
+            return;
+        }
+        change(target -> target.subMap(month.atDay(1), true, month.atEndOfMonth(), true).clear());
+        log.info("[CONSUMER] 🧮 Dropped archived month {} from the read model", month);
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    // Published only once the transaction that wrote the records has committed; records of one call share
+    // payrollDate and status, and a later record for the same employee replaces an earlier one
+    public void applyAfterCommit(LocalDate payrollDate, String status, List<PayrollData> records) {
+        if (!enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(payrollDate, status, records);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(payrollDate, status, records);
+            }
+        });
+    }
+    
+    // Totals per department over a date range, optionally for one status only
+    public List<DepartmentTotals> getDepartmentTotals(LocalDate from, LocalDate to, String status) {
+        int statusId = status == null ? ALL : statuses.find(status);
+        if (statusId == Dictionary.MISSING) {
+            return List.of();
+        }
+        List<DepartmentTotals> result = new ArrayList<>();
+        scan(from, to, false, ALL, statusId, (group, totals) -> result.add(new DepartmentTotals(
+                departments.value(group), totals.recordCount[group],
+                amount(totals.baseSalary[group]), amount(totals.allowances[group]),
+                amount(totals.deductions[group]), amount(totals.netSalary[group]))));
+        result.sort(Comparator.comparing(DepartmentTotals::getDepartment));
+        return result;
+    }
+    
+    // Totals per payroll date over a date range, optionally for one department only
+    public List<DateTotals> getDateTotals(LocalDate from, LocalDate to, String department) {
+        int departmentId = department == null ? ALL : departments.find(department);
+        if (departmentId == Dictionary.MISSING) {
+            return List.of();
+        }
+        List<DateTotals> result = new ArrayList<>();
+        scan(from, to, true, departmentId, ALL, (group, totals) -> result.add(new DateTotals(
+                totals.dates.get(group), totals.recordCount[group],
+                amount(totals.baseSalary[group]), amount(totals.allowances[group]),
+                amount(totals.deductions[group]), amount(totals.netSalary[group]))));
+        return result;
+    }
+    
+    public Map<String, Object> getStats() {
+        long bytes = 0;
+        for (Segment segment : segments.values()) {
+            bytes += segment.sizeInBytes();
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("records", rowCount());
+        stats.put("dates", segments.size());
+        stats.put("employees", employees.size());
+        stats.put("departments", departments.size());
+        stats.put("columnBytes", bytes);
+        stats.put("loadMillis", loadMillis);
+        return stats;
+    }
+    
+    private long rowCount() {
+        long rows = 0;
+        for (Segment segment : segments.values()) {
+            rows += segment.size;
+        }
+        return rows;
+    }
+    
+    // Replaces the segments with payroll_records as it is now, without the archived months. Keyset pages like the
+    // NDJSON export, so the driver never holds the whole table; scans keep using the old segments meanwhile. Changes
+    // applied during the read are replayed before the swap, they are at least as new as what the read saw.
+    void reload() {
+        long startNanos = System.nanoTime();
+        ConcurrentSkipListMap<LocalDate, Segment> loaded = new ConcurrentSkipListMap<>();
+        synchronized (changesDuringReload) {
+            reloading = true;
+        }
+        try {
+            long afterId = 0;
+            while (true) {
+                long[] page = {afterId, 0}; // last id, rows read
+                jdbcTemplate.query(
+                        "SELECT id, employee_id, department, status, payroll_date, base_salary, allowances, deductions, net_salary "
+                                + "FROM payroll_records WHERE id > ? ORDER BY id LIMIT ?",
+                        rs -> {
+                            page[0] = rs.getLong(1);
+                            page[1]++;
+                            load(rs, loaded);
+                        },
+                        afterId, LOAD_PAGE_SIZE);
+                if (page[1] < LOAD_PAGE_SIZE) {
+                    break;
+                }
+                afterId = page[0];
+            }
+            for (YearMonth month : payrollArchiveService.archivedMonths()) {
+                loaded.subMap(month.atDay(1), true, month.atEndOfMonth(), true).clear();
+            }
+            synchronized (changesDuringReload) {
+                changesDuringReload.forEach(change -> change.accept(loaded));
+                segments = loaded;
+            }
+        } finally {
+            synchronized (changesDuringReload) {
+                changesDuringReload.clear();
+                reloading = false;
+            }
+        }
+        loadMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        log.info("[CONSUMER] 🧮 Loaded {} payroll records over {} dates into the read model in {} ms",
+                rowCount(), loaded.size(), loadMillis);
+    }
+    
+    // Runs the change on the current segments, and records it for the reloaded ones while a reload is under way
+    private void change(Consumer<ConcurrentSkipListMap<LocalDate, Segment>> change) {
+        ConcurrentSkipListMap<LocalDate, Segment> current;
+        synchronized (changesDuringReload) {
+            if (reloading) {
+                changesDuringReload.add(change);
+            }
+            current = segments;
+        }
+        change.accept(current);
+    }
+    
+    private void load(ResultSet rs, ConcurrentSkipListMap<LocalDate, Segment> target) throws SQLException {
+        Segment segment = target.computeIfAbsent(rs.getObject(5, LocalDate.class), date -> new Segment());
+        segment.put(employees.intern(rs.getString(2)), departments.intern(rs.getString(3)), statuses.intern(rs.getString(4)),
+                cents(rs.getBigDecimal(6)), cents(rs.getBigDecimal(7)), cents(rs.getBigDecimal(8)), cents(rs.getBigDecimal(9)));
+    }
+    
+    private void apply(LocalDate payrollDate, String status, List<PayrollData> records) {
+        change(target -> put(target, payrollDate, status, records));
+    }
+    
+    private void put(ConcurrentSkipListMap<LocalDate, Segment> target, LocalDate payrollDate, String status,
+                     List<PayrollData> records) {
+        int statusId = statuses.intern(status);
+        Segment segment = target.computeIfAbsent(payrollDate, date -> new Segment());
+        segment.lock.writeLock().lock();
+        try {
+            for (PayrollData payrollData : records) {
+                segment.put(employees.intern(payrollData.getEmployeeId()), departments.intern(payrollData.getDepartment()),
+                        statusId, cents(payrollData.getBaseSalary()), cents(payrollData.getAllowances()),
+                        cents(payrollData.getDeductions()), cents(payrollData.getNetSalary()));
+            }
+        } finally {
+            segment.lock.writeLock().unlock();
+        }
+    }
+    
+    // Holds the read locks of every segment in the range for the whole scan, so it sees each date as of one commit.
+    // Dictionary ids are taken after locking: a row in a locked segment can only use an id that already exists.
+    private void scan(LocalDate from, LocalDate to, boolean byDate, int departmentId, int statusId, GroupSink sink) {
+        long startNanos = System.nanoTime();
+        List<Map.Entry<LocalDate, Segment>> range = new ArrayList<>(segments.subMap(from, true, to, true).entrySet());
+        for (Map.Entry<LocalDate, Segment> entry : range) {
+            entry.getValue().lock.readLock().lock();
+        }
+        try {
+            List<Slice> slices = new ArrayList<>();
+            for (int group = 0; group < range.size(); group++) {
+                Segment segment = range.get(group).getValue();
+                for (int start = 0; start < segment.size; start += SLICE_ROWS) {
+                    slices.add(new Slice(segment, group, start, Math.min(segment.size, start + SLICE_ROWS)));
+                }
+            }
+            if (slices.isEmpty()) {
+                return;
+            }
+            int groups = byDate ? range.size() : departments.size();
+            Totals totals = pool.invoke(new ScanTask(slices, 0, slices.size(), groups, byDate, departmentId, statusId));
+            totals.dates = range.stream().map(Map.Entry::getKey).toList();
+            for (int group = 0; group < groups; group++) {
+                if (totals.recordCount[group] > 0) {
+                    sink.accept(group, totals);
+                }
+            }
+        } finally {
+            for (Map.Entry<LocalDate, Segment> entry : range) {
+                entry.getValue().lock.readLock().unlock();
+            }
+            meterRegistry.timer("payroll.read-model.scan", "group-by", byDate ? "date" : "department")
+                    .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+    
+    private static long cents(Money amount) {
+        return amount == null ? 0 : amount.cents();
+    }
+    
+    private static long cents(BigDecimal amount) {
+        return amount == null ? 0 : Money.of(amount).cents();
+    }
+    
+    private static BigDecimal amount(long cents) {
+        return BigDecimal.valueOf(cents, Money.SCALE);
+    }
+    
+    private interface GroupSink {
+        void accept(int group, Totals totals);
+    }
+    
+    private record Slice(Segment segment, int group, int start, int end) {
+    }
+    
+    // Sums slices [lo, hi) by halving the range until a single slice is left
+    private static final class ScanTask extends RecursiveTask<Totals> {
+        
+        private final List<Slice> slices;
+        private final int lo;
+        private final int hi;
+        private final int groups;
+        private final boolean byDate;
+        private final int departmentId;
+        private final int statusId;
+        
+        ScanTask(List<Slice> slices, int lo, int hi, int groups, boolean byDate, int departmentId, int statusId) {
+            this.slices = slices;
+            this.lo = lo;
+            this.hi = hi;
+            this.groups = groups;
+            this.byDate = byDate;
+            this.departmentId = departmentId;
+            this.statusId = statusId;
+        }
+        
+        @Override
+        protected Totals compute() {
+            if (hi - lo == 1) {
+                return scan(slices.get(lo));
+            }
+            int mid = (lo + hi) >>> 1;
+            ScanTask left = new ScanTask(slices, lo, mid, groups, byDate, departmentId, statusId);
+            left.fork();
+            Totals right = new ScanTask(slices, mid, hi, groups, byDate, departmentId, statusId).compute();
+            return left.join().add(right);
+        }
+        
+        private Totals scan(Slice slice) {
+            Totals totals = new Totals(groups);
+            Segment segment = slice.segment();
+            for (int row = slice.start(); row < slice.end(); row++) {
+                int department = segment.department[row];
+                if ((departmentId != ALL && department != departmentId)
+                        || (statusId != ALL && segment.status[row] != statusId)) {
+                    continue;
+                }
+                int group = byDate ? slice.group() : department;
+                totals.recordCount[group]++;
+                totals.baseSalary[group] += segment.baseSalary[row];
+                totals.allowances[group] += segment.allowances[row];
+                totals.deductions[group] += segment.deductions[row];
+                totals.netSalary[group] += segment.netSalary[row];
+            }
+            return totals;
+        }
+    }
+    
+    // Sums in cents per group (department id or index of the date in the scanned range)
+    private static final class Totals {
+        final long[] recordCount;
+        final long[] baseSalary;
+        final long[] allowances;
+        final long[] deductions;
+        final long[] netSalary;
+        List<LocalDate> dates;
+        
+        Totals(int groups) {
+            recordCount = new long[groups];
+            baseSalary = new long[groups];
+            allowances = new long[groups];
+            deductions = new long[groups];
+            netSalary = new long[groups];
+        }
+        
+        Totals add(Totals other) {
+            for (int group = 0; group < recordCount.length; group++) {
+                recordCount[group] += other.recordCount[group];
+                baseSalary[group] += other.baseSalary[group];
+                allowances[group] += other.allowances[group];
+                deductions[group] += other.deductions[group];
+                netSalary[group] += other.netSalary[group];
+            }
+            return this;
+        }
+    }
+    
+    // Rows of one payroll date. An employee has at most one row per date (uk_employee_payroll_date), found through
+    // an open-addressing table of row numbers keyed by employee id, so a resubmission overwrites its row in place.
+    private static final class Segment {
+        
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        int size;
+        int[] employee = new int[16];
+        int[] department = new int[16];
+        int[] status = new int[16];
+        long[] baseSalary = new long[16];
+        long[] allowances = new long[16];
+        long[] deductions = new long[16];
+        long[] netSalary = new long[16];
+        int[] rowSlots = new int[32]; // row + 1, 0 = empty
+        
+        void put(int employeeId, int departmentId, int statusId, long base, long allowance, long deduction, long net) {
+            int mask = rowSlots.length - 1;
+            int slot = hash(employeeId) & mask;
+            while (rowSlots[slot] != 0 && employee[rowSlots[slot] - 1] != employeeId) {
+                slot = (slot + 1) & mask;
+            }
+            int row;
+            if (rowSlots[slot] != 0) {
+                row = rowSlots[slot] - 1;
+            } else {
+                if (size == employee.length) {
+                    grow();
+                }
+                row = size++;
+                employee[row] = employeeId;
+                rowSlots[slot] = row + 1;
+                if (size * 2 > rowSlots.length) {
+                    rehash();
+                }
+            }
+            department[row] = departmentId;
+            status[row] = statusId;
+            baseSalary[row] = base;
+            allowances[row] = allowance;
+            deductions[row] = deduction;
+            netSalary[row] = net;
+        }
+        
+        long sizeInBytes() {
+            return (long) employee.length * (3 * Integer.BYTES + 4 * Long.BYTES) + (long) rowSlots.length * Integer.BYTES;
+        }
+        
+        private void grow() {
+            int capacity = employee.length * 2;
+            employee = Arrays.copyOf(employee, capacity);
+            department = Arrays.copyOf(department, capacity);
+            status = Arrays.copyOf(status, capacity);
+            baseSalary = Arrays.copyOf(baseSalary, capacity);
+            allowances = Arrays.copyOf(allowances, capacity);
+            deductions = Arrays.copyOf(deductions, capacity);
+            netSalary = Arrays.copyOf(netSalary, capacity);
+        }
+        
+        private void rehash() {
+            rowSlots = new int[rowSlots.length * 2];
+            int mask = rowSlots.length - 1;
+            for (int row = 0; row < size; row++) {
+                int slot = hash(employee[row]) & mask;
+                while (rowSlots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                rowSlots[slot] = row + 1;
+            }
+        }
+        
+        private static int hash(int id) {
+            int h = id * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+    
+    // String <-> dense int id. Ids are never reused, so a column keeps its meaning as the dictionary grows.
+    private static final class Dictionary {
+        
+        static final int MISSING = -2;
+        
+        private final Map<String, Integer> ids = new HashMap<>();
+        private String[] values = new String[16];
+        
+        synchronized int intern(String value) {
+            Integer id = ids.get(value);
+            if (id != null) {
+                return id;
+            }
+            int newId = ids.size();
+            if (newId == values.length) {
+                values = Arrays.copyOf(values, newId * 2);
+            }
+            values[newId] = value;
+            ids.put(value, newId);
+            return newId;
+        }
+        
+        synchronized int find(String value) {
+            return ids.getOrDefault(value, MISSING);
+        }
+        
+        synchronized String value(int id) {
+            return values[id];
+        }
+        
+        synchronized int size() {
+            return ids.size();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.payroll.consumer.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.payroll.consumer.model.Employee;
+import com.payroll.consumer.model.PayrollRecord;
+import com.payroll.consumer.repository.EmployeeRepository;
+import com.payroll.consumer.repository.PayrollRecordRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+// Writes whole tables as NDJSON by scrolling keyset pages, so memory stays flat whatever the table size
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PayrollExportService {
+    
+    private static final int SCROLL_PAGE_SIZE = 1000;
+    private static final byte NEWLINE = '\n';
+    
+    private final EmployeeRepository employeeRepository;
+    private final PayrollRecordRepository payrollRecordRepository;
+    private final ObjectMapper objectMapper;
+    
+    public long writeEmployees(OutputStream out) throws IOException {
+        return writeNdjson(out, employeeRepository::findByIdGreaterThanOrderByIdAsc, Employee::getId);
+    }
+    
+    public long writePayrollRecords(OutputStream out) throws IOException {
+        return writeNdjson(out, payrollRecordRepository::findByIdGreaterThanOrderByIdAsc, PayrollRecord::getId);
+    }
+    
+    public long writePayrollRecords(OutputStream out, LocalDate from, LocalDate until) throws IOException {
+        return writeNdjson(out,
+                (afterId, pageable) -> payrollRecordRepository.findByPayrollDateRangeAfterId(from, until, afterId, pageable),
+                PayrollRecord::getId);
+    }
+    
+    private <T> long writeNdjson(OutputStream out, BiFunction<Long, Pageable, List<T>> nextPage,
+                                 Function<T, Long> idOf) throws IOException {
+        ObjectWriter rowWriter = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        Pageable pageable = PageRequest.ofSize(SCROLL_PAGE_SIZE);
+        long afterId = 0;
+        long written = 0;
+        
+        while (true) {
+            List<T> page = nextPage.apply(afterId, pageable);
+            for (T row : page) {
+                rowWriter.writeValue(out, row);
+                out.write(NEWLINE);
+            }
+            written += page.size();
+            out.flush();
+            
+            if (page.size() < SCROLL_PAGE_SIZE) {
+                return written;
+            }
+            afterId = idOf.apply(page.get(page.size() - 1));
+        }
+    }
+}
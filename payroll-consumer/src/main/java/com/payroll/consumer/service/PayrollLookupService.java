@@ -0,0 +1,105 @@
+package com.payroll.consumer.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.payroll.consumer.repository.EmployeeRepository;
+import com.payroll.consumer.repository.PayrollRecordRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+// Bulk lookups by employee ID for callers that would otherwise hit /api/employees/{employeeId} once per employee.
+// The IDs are deduplicated and queried chunk-size at a time with one IN query per chunk; each chunk's rows are
+// written as NDJSON and flushed before the next query, so memory is bounded by one chunk. IDs that match nothing
+// are simply absent from the output.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PayrollLookupService {
+    
+    private static final byte NEWLINE = '\n';
+    
+    private final EmployeeRepository employeeRepository;
+    private final PayrollRecordRepository payrollRecordRepository;
+    private final PayrollArchiveService payrollArchiveService;
+    private final ObjectMapper objectMapper;
+    
+    @Value("${payroll.lookup.chunk-size:1000}")
+    private int chunkSize;
+    
+    @Value("${payroll.lookup.max-ids:100000}")
+    private int maxIds;
+    
+    public int getMaxIds() {
+        return maxIds;
+    }
+    
+    public long writeEmployees(OutputStream out, Collection<String> employeeIds) throws IOException {
+        return writeChunked(out, new LinkedHashSet<>(employeeIds), employeeRepository::findByEmployeeIdIn);
+    }
+    
+    // In date order. A month with an archive file is read from the file only, like the date queries do, so a month
+    // whose partition is still there while it is being archived does not come back twice; runs of the other months
+    // are queried in MySQL.
+    public long writePayrollRecords(OutputStream out, Collection<String> employeeIds, LocalDate from, LocalDate to)
+            throws IOException {
+        Set<String> ids = new LinkedHashSet<>(employeeIds);
+        long written = 0;
+        LocalDate mysqlFrom = from;
+        for (YearMonth month = YearMonth.from(from); !month.isAfter(YearMonth.from(to)); month = month.plusMonths(1)) {
+            if (!payrollArchiveService.isArchived(month.atDay(1))) {
+                continue;
+            }
+            LocalDate monthFrom = month.atDay(1).isBefore(from) ? from : month.atDay(1);
+            LocalDate monthTo = month.atEndOfMonth().isAfter(to) ? to : month.atEndOfMonth();
+            written += writeMysqlRecords(out, ids, mysqlFrom, monthFrom.minusDays(1));
+            written += writeRows(out, payrollArchiveService.findPayrollRecords(ids, monthFrom, monthTo));
+            mysqlFrom = monthTo.plusDays(1);
+        }
+        return written + writeMysqlRecords(out, ids, mysqlFrom, to);
+    }
+    
+    private long writeMysqlRecords(OutputStream out, Set<String> ids, LocalDate from, LocalDate to)
+            throws IOException {
+        if (from.isAfter(to)) {
+            return 0;
+        }
+        return writeChunked(out, ids,
+                chunk -> payrollRecordRepository.findByEmployeeIdInAndPayrollDateBetween(chunk, from, to));
+    }
+    
+    private <T> long writeChunked(OutputStream out, Set<String> ids,
+                                  Function<List<String>, List<T>> query) throws IOException {
+        List<String> idList = new ArrayList<>(ids);
+        long written = 0;
+        for (int i = 0; i < idList.size(); i += chunkSize) {
+            written += writeRows(out, query.apply(idList.subList(i, Math.min(i + chunkSize, idList.size()))));
+        }
+        log.info("[CONSUMER] 🔎 Looked up {} employee IDs in {} queries, {} rows",
+                idList.size(), (idList.size() + chunkSize - 1) / chunkSize, written);
+        return written;
+    }
+    
+    private <T> long writeRows(OutputStream out, List<T> rows) throws IOException {
+        ObjectWriter rowWriter = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        for (T row : rows) {
+            rowWriter.writeValue(out, row);
+            out.write(NEWLINE);
+        }
+        out.flush();
+        return rows.size();
+    }
+}
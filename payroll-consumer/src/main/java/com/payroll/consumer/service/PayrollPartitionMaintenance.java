@@ -0,0 +1,164 @@
+package com.payroll.consumer.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.StringJoiner;
+
+// Keeps the range partitions of payroll_records (V3 migration) one per month: splits months off p_future up to
+// months-ahead beyond the current one, and once a month is older than retention-months, archives its rows through
+// PayrollArchiveService and drops the partition. Dropping a partition is instant, unlike deleting its rows.
+// The rollups keep their totals for archived months; the read model only holds what is still in MySQL.
+// The ALTERs change the table for every consumer instance, so a run holds a named MySQL lock (GET_LOCK) and an
+// instance that finds it taken skips its run.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PayrollPartitionMaintenance {
+    
+    private static final String FUTURE_PARTITION = "p_future";
+    private static final String LOCK_NAME = "CONCAT(DATABASE(), '.payroll_partition_maintenance')";
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final PayrollArchiveService payrollArchiveService;
+    private final PayrollColumnStore payrollColumnStore;
+    
+    @Value("${payroll.archive.enabled:false}")
+    private boolean enabled;
+    
+    @Value("${payroll.archive.months-ahead:3}")
+    private int monthsAhead;
+    
+    @Value("${payroll.archive.retention-months:24}")
+    private int retentionMonths;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintain();
+    }
+    
+    @Scheduled(cron = "${payroll.archive.cron:0 30 1 * * *}")
+    public synchronized void maintain() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            // The lock belongs to this connection, which is held for the whole run
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                if (!namedLock(connection, "SELECT GET_LOCK(" + LOCK_NAME + ", 0)")) {
+                    log.info("[CONSUMER] 🗂️ Partition maintenance is running on another instance, skipping this run");
+                    return null;
+                }
+                try {
+                    maintainPartitions();
+                } finally {
+                    namedLock(connection, "SELECT RELEASE_LOCK(" + LOCK_NAME + ")");
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            // Next run picks up where this one stopped: every step is derived from the partitions as they are
+            log.error("[CONSUMER] ❌ Partition maintenance of payroll_records failed", e);
+        }
+    }
+    
+    private void maintainPartitions() {
+        List<Partition> partitions = readPartitions();
+        if (partitions.isEmpty()) {
+            log.warn("[CONSUMER] ⚠️ payroll_records is not partitioned, skipping partition maintenance");
+            return;
+        }
+        addPartitions(partitions);
+        try {
+            archivePartitions(readPartitions());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private static boolean namedLock(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement(); ResultSet result = statement.executeQuery(sql)) {
+            return result.next() && result.getInt(1) == 1;
+        }
+    }
+    
+    // In partition order; until is the exclusive upper bound, null for p_future
+    private List<Partition> readPartitions() {
+        return jdbcTemplate.query(
+                "SELECT partition_name, partition_description FROM information_schema.partitions "
+                        + "WHERE table_schema = DATABASE() AND table_name = 'payroll_records' AND partition_name IS NOT NULL "
+                        + "ORDER BY partition_ordinal_position",
+                (rs, rowNum) -> {
+                    String bound = rs.getString(2);
+                    return new Partition(rs.getString(1),
+                            "MAXVALUE".equals(bound) ? null : LocalDate.parse(bound.replace("'", "")));
+                });
+    }
+    
+    // Splits p_future from the first month it may hold rows for; p_future itself is empty after the first run,
+    // so later reorganizations move no rows
+    private void addPartitions(List<Partition> partitions) {
+        YearMonth last = YearMonth.now().plusMonths(monthsAhead);
+        YearMonth first;
+        if (partitions.size() > 1) {
+            first = YearMonth.from(partitions.get(partitions.size() - 2).until());
+        } else {
+            LocalDate oldest = jdbcTemplate.queryForObject("SELECT MIN(payroll_date) FROM payroll_records", LocalDate.class);
+            first = oldest != null ? YearMonth.from(oldest) : YearMonth.now();
+        }
+        if (first.isAfter(last)) {
+            return;
+        }
+        
+        StringJoiner definitions = new StringJoiner(", ");
+        for (YearMonth month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+            definitions.add("PARTITION " + month.format(PARTITION_NAME) + " VALUES LESS THAN ('" + month.plusMonths(1).atDay(1) + "')");
+        }
+        definitions.add("PARTITION " + FUTURE_PARTITION + " VALUES LESS THAN (MAXVALUE)");
+        jdbcTemplate.execute("ALTER TABLE payroll_records REORGANIZE PARTITION " + FUTURE_PARTITION + " INTO (" + definitions + ")");
+        log.info("[CONSUMER] 🗂️ Added payroll_records partitions {} to {}", first.format(PARTITION_NAME), last.format(PARTITION_NAME));
+    }
+    
+    // A partition is only dropped once its archive file holds as many rows as the partition
+    private void archivePartitions(List<Partition> partitions) throws IOException {
+        LocalDate oldestKept = YearMonth.now().minusMonths(retentionMonths).atDay(1);
+        for (Partition partition : partitions) {
+            if (partition.until() == null || partition.until().isAfter(oldestKept)) {
+                continue;
+            }
+            YearMonth month = YearMonth.from(partition.until().minusMonths(1));
+            long archived = payrollArchiveService.archive(month, () -> jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM payroll_records PARTITION (" + partition.name() + ")", Long.class));
+            if (archived < 0) {
+                log.warn("[CONSUMER] ⚠️ Keeping partition {}, it is archived again on the next run",
+                        partition.name());
+                continue;
+            }
+            jdbcTemplate.execute("ALTER TABLE payroll_records DROP PARTITION " + partition.name());
+            payrollColumnStore.dropMonth(month); // other instances drop it on their next reload
+            log.info("[CONSUMER] 📦 Archived {} payroll records of {} and dropped partition {}",
+                    archived, month, partition.name());
+        }
+    }
+    
+    private record Partition(String name, LocalDate until) {
+    }
+}
@@ -0,0 +1,139 @@
+package com.payroll.consumer.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.payroll.consumer.repository.PayrollDateVersionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Serialized JSON of the payroll-date queries, keyed by query and tagged with the date's version from
+// payroll_date_versions. Only past dates are kept: today's records change with every poll. An entry is served
+// only while its version is still the current one, so the bytes never outlive a write, on this instance or another.
+// The versions are bumped here after the writes commit. A bump that fails leaves its dates unsettled: they are
+// bumped again with the next bump or by retryFailedBumps, and until then this instance neither caches them nor
+// answers 304 for them.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PayrollResponseCache {
+    
+    private final PayrollDateVersionRepository payrollDateVersionRepository;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    
+    @Value("${payroll.response-cache.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${payroll.response-cache.max-bytes:67108864}")
+    private long maxBytes;
+    
+    @Value("${payroll.response-cache.max-age:1h}")
+    private Duration maxAge;
+    
+    private Cache<String, CachedResponse> responses;
+    
+    // Dates whose bump failed, with a stamp per failure so a retry only clears the failures it has covered
+    private final Map<LocalDate, Long> failedBumps = new ConcurrentHashMap<>();
+    private final AtomicLong failureStamps = new AtomicLong();
+    
+    @PostConstruct
+    void init() {
+        responses = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, CachedResponse response) -> response.json().length)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, responses, "payrollResponses");
+    }
+    
+    public long getVersion(LocalDate payrollDate) {
+        return payrollDateVersionRepository.findVersion(payrollDate);
+    }
+    
+    // False while a committed write of the date has not been reflected in its version yet
+    public boolean isSettled(LocalDate payrollDate) {
+        return !failedBumps.containsKey(payrollDate);
+    }
+    
+    // Called after the writes of the dates have committed; never throws, the records are in MySQL already
+    public void bumpVersions(Collection<LocalDate> payrollDates) {
+        Map<LocalDate, Long> retried = Map.copyOf(failedBumps);
+        Set<LocalDate> dates = new HashSet<>(payrollDates);
+        dates.addAll(retried.keySet());
+        if (dates.isEmpty()) {
+            return;
+        }
+        try {
+            payrollDateVersionRepository.bump(dates);
+            retried.forEach(failedBumps::remove);
+        } catch (RuntimeException e) {
+            long stamp = failureStamps.incrementAndGet();
+            dates.forEach(payrollDate -> failedBumps.put(payrollDate, stamp));
+            log.error("[CONSUMER] ❌ Could not bump the versions of payroll dates {}, retrying later", dates, e);
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${payroll.response-cache.bump-retry-interval-ms:5000}")
+    public void retryFailedBumps() {
+        if (!failedBumps.isEmpty()) {
+            bumpVersions(List.of());
+        }
+    }
+    
+    // Weak: the same version always has the same records, but not necessarily in the same order
+    public String etag(LocalDate payrollDate, long version) {
+        return "W/\"" + payrollDate + "." + version + "\"";
+    }
+    
+    // Past dates are closed; today and later must be revalidated on every use
+    public CacheControl cacheControl(LocalDate payrollDate) {
+        return payrollDate.isBefore(LocalDate.now()) ? CacheControl.maxAge(maxAge) : CacheControl.noCache();
+    }
+    
+    // The version must be read before the records behind body, so cached bytes are at least as new as their
+    // version: a write committing in between makes them newer, and the next request sees the new version anyway
+    public byte[] getJson(String key, LocalDate payrollDate, long version, Supplier<Object> body) {
+        if (!enabled || !payrollDate.isBefore(LocalDate.now()) || !isSettled(payrollDate)) {
+            return toJson(body.get());
+        }
+        CachedResponse cached = responses.getIfPresent(key);
+        if (cached != null && cached.version() == version) {
+            return cached.json();
+        }
+        byte[] json = toJson(body.get());
+        responses.put(key, new CachedResponse(version, json));
+        return json;
+    }
+    
+    private byte[] toJson(Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private record CachedResponse(long version, byte[] json) {
+    }
+}
@@ -1,42 +1,283 @@
 package com.payroll.consumer.service;
 
-import com.payroll.consumer.dto.PayrollData;
+import com.payroll.common.dto.PayrollData;
+import com.payroll.common.logging.RecordLogSampler;
+import com.payroll.consumer.dto.PartitionOffsets;
 import com.payroll.consumer.model.Employee;
 import com.payroll.consumer.model.PayrollRecord;
+import com.payroll.consumer.repository.ConsumerOffsetRepository;
 import com.payroll.consumer.repository.EmployeeRepository;
+import com.payroll.consumer.repository.PayrollBatchRepository;
 import com.payroll.consumer.repository.PayrollRecordRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class PayrollService {
     
+    // Strictly increasing within this JVM, so two records taken in one after the other never share a value
+    private static final AtomicLong lastReceivedAt = new AtomicLong();
+    
+    // Transaction resource key of the dates whose versions are bumped after commit
+    private static final Object VERSIONS_TO_BUMP = new Object();
+    
     private final EmployeeRepository employeeRepository;
     private final PayrollRecordRepository payrollRecordRepository;
+    private final PayrollBatchRepository payrollBatchRepository;
+    private final PayrollResponseCache payrollResponseCache;
+    private final ConsumerOffsetRepository consumerOffsetRepository;
+    private final PayrollStatsService payrollStatsService;
+    private final EmployeeLookupService employeeLookupService;
+    private final EmployeeFingerprintCache employeeFingerprintCache;
+    private final PayrollColumnStore payrollColumnStore;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RecordLogSampler recordLogSampler;
     
     @Transactional
     public void processPayrollData(PayrollData payrollData) {
-        log.info("[CONSUMER] 💼 Processing payroll data for Employee ID: {}", payrollData.getEmployeeId());
+        process(payrollData, nextReceivedAt());
+    }
+    
+    // A record from a retry topic, first taken in by the main listener at receivedAt. Later records of the same
+    // employee kept flowing through the main listener meanwhile, so the retry is skipped if any of them has been
+    // written (its received_at is not older); false then. The lock keeps a concurrent write from slipping in
+    // between the check and this write.
+    @Transactional
+    public boolean processRetriedPayrollData(PayrollData payrollData, long receivedAt) {
+        // Employee row first, then the payroll record: the order every write path locks in
+        payrollBatchRepository.lockEmployeeFingerprints(List.of(payrollData.getEmployeeId()));
+        Long newest = payrollBatchRepository.lockNewestReceivedAt(payrollData.getEmployeeId(), LocalDate.now());
+        if (newest != null && newest >= receivedAt) {
+            log.info("[CONSUMER] ⏭️ Skipping retry of Employee ID: {} ({} line {}): data received at {} is already written",
+                    payrollData.getEmployeeId(), payrollData.getFileName(), payrollData.getLineNumber(),
+                    Instant.ofEpochMilli(newest));
+            return false;
+        }
+        process(payrollData, receivedAt);
+        return true;
+    }
+    
+    // Bumps the date's version once the transaction commits, once per date however often the transaction wrote it.
+    // Until then readers keep the old version, which is safe: whatever they cache under it is revalidated by the bump.
+    // Called after the other after-commit work is registered; a failed bump is handled by PayrollResponseCache and
+    // never stops the synchronizations after it.
+    private void bumpVersionAfterCommit(LocalDate payrollDate) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            payrollResponseCache.bumpVersions(List.of(payrollDate));
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Set<LocalDate> dates = (Set<LocalDate>) TransactionSynchronizationManager.getResource(VERSIONS_TO_BUMP);
+        if (dates == null) {
+            Set<LocalDate> pending = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(VERSIONS_TO_BUMP, pending);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    payrollResponseCache.bumpVersions(pending);
+                }
+                
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(VERSIONS_TO_BUMP);
+                }
+            });
+            dates = pending;
+        }
+        dates.add(payrollDate);
+    }
+    
+    // Epoch millis stamped on every record the main listener takes in, and on a failed record's retries
+    public static long nextReceivedAt() {
+        long now = System.currentTimeMillis();
+        return lastReceivedAt.accumulateAndGet(now, (last, current) -> Math.max(last + 1, current));
+    }
+    
+    private void process(PayrollData payrollData, long receivedAt) {
+        boolean logRecord = recordLogSampler.sample(payrollData.getEmployeeId());
+        if (logRecord) {
+            log.info("[CONSUMER] 💼 Processing payroll data for Employee ID: {}", payrollData.getEmployeeId());
+        }
+        
+        PayrollStatsDelta statsDelta = new PayrollStatsDelta();
         
-        // Save or update employee
-        Employee employee = saveOrUpdateEmployee(payrollData);
+        // Save or update employee, unless its master data is unchanged since the last write
+        long fingerprint = EmployeeFingerprintCache.fingerprint(payrollData);
+        if (employeeFingerprintCache.isUnchanged(payrollData.getEmployeeId(), fingerprint)
+                && confirmUnchanged(Map.of(payrollData.getEmployeeId(), fingerprint)).isEmpty()) {
+            if (logRecord) {
+                log.debug("[CONSUMER] ⏭️ Employee {} unchanged, skipping employee update", payrollData.getEmployeeId());
+            }
+        } else {
+            saveOrUpdateEmployee(payrollData, fingerprint, statsDelta, logRecord);
+            employeeFingerprintCache.putAfterCommit(Map.of(payrollData.getEmployeeId(), fingerprint));
+        }
         
         // Create payroll record
-        createPayrollRecord(payrollData);
+        PayrollRecord record = createPayrollRecord(payrollData, receivedAt, statsDelta, logRecord);
+        
+        payrollStatsService.apply(statsDelta);
+        employeeLookupService.invalidateAfterWrite(List.of(payrollData.getEmployeeId()));
+        payrollColumnStore.applyAfterCommit(record.getPayrollDate(), record.getStatus(), List.of(payrollData));
+        eventPublisher.publishEvent(new PayrollWrittenEvent(List.of(payrollData)));
+        bumpVersionAfterCommit(record.getPayrollDate());
+        
+        if (logRecord) {
+            log.info("[CONSUMER] ✅ Completed processing payroll data for Employee ID: {}", payrollData.getEmployeeId());
+        }
+    }
+    
+    @Transactional
+    public void processPayrollBatch(List<PayrollData> batch) {
+        // Last record per employee wins, same as processing the batch one record at a time
+        Map<String, PayrollData> latestByEmployee = new LinkedHashMap<>();
+        Map<String, Integer> resubmissions = new HashMap<>();
+        for (PayrollData payrollData : batch) {
+            if (latestByEmployee.put(payrollData.getEmployeeId(), payrollData) != null) {
+                resubmissions.merge(payrollData.getEmployeeId(), 1, Integer::sum);
+            }
+        }
+        
+        // Employees whose master data is unchanged since the last write need no update
+        Map<String, Long> fingerprints = new HashMap<>();
+        Map<String, Long> cachedAsUnchanged = new HashMap<>();
+        for (PayrollData payrollData : latestByEmployee.values()) {
+            long fingerprint = EmployeeFingerprintCache.fingerprint(payrollData);
+            fingerprints.put(payrollData.getEmployeeId(), fingerprint);
+            if (employeeFingerprintCache.isUnchanged(payrollData.getEmployeeId(), fingerprint)) {
+                cachedAsUnchanged.put(payrollData.getEmployeeId(), fingerprint);
+            }
+        }
+        Set<String> changedSinceCached = confirmUnchanged(cachedAsUnchanged);
+        Map<String, Long> changedFingerprints = new HashMap<>();
+        List<PayrollData> changedEmployees = new ArrayList<>();
+        for (PayrollData payrollData : latestByEmployee.values()) {
+            String employeeId = payrollData.getEmployeeId();
+            if (!cachedAsUnchanged.containsKey(employeeId) || changedSinceCached.contains(employeeId)) {
+                changedFingerprints.put(employeeId, fingerprints.get(employeeId));
+                changedEmployees.add(payrollData);
+            }
+        }
+        
+        PayrollStatsDelta statsDelta = new PayrollStatsDelta();
+        Map<String, String> existingDepartments = changedEmployees.isEmpty()
+                ? Map.of()
+                : payrollBatchRepository.findEmployeeDepartments(changedFingerprints.keySet());
+        List<PayrollData> newEmployees = new ArrayList<>();
+        List<PayrollData> updatedEmployees = new ArrayList<>();
+        for (PayrollData payrollData : changedEmployees) {
+            if (existingDepartments.containsKey(payrollData.getEmployeeId())) {
+                updatedEmployees.add(payrollData);
+                statsDelta.employeeMoved(existingDepartments.get(payrollData.getEmployeeId()), payrollData.getDepartment());
+            } else {
+                newEmployees.add(payrollData);
+                statsDelta.employeeAdded(payrollData.getDepartment());
+            }
+        }
         
-        log.info("[CONSUMER] ✅ Completed processing payroll data for Employee ID: {}", payrollData.getEmployeeId());
+        if (!updatedEmployees.isEmpty()) {
+            payrollBatchRepository.updateEmployees(updatedEmployees, changedFingerprints);
+        }
+        if (!newEmployees.isEmpty()) {
+            payrollBatchRepository.insertEmployees(newEmployees, changedFingerprints);
+        }
+        employeeFingerprintCache.putAfterCommit(changedFingerprints);
+        
+        LocalDate payrollDate = LocalDate.now();
+        Map<String, PayrollRecord> existingRecords = payrollBatchRepository.findPayrollRecords(latestByEmployee.keySet(), payrollDate);
+        List<PayrollData> records = new ArrayList<>(latestByEmployee.values());
+        for (PayrollData payrollData : records) {
+            PayrollRecord existing = existingRecords.get(payrollData.getEmployeeId());
+            int resubmitted = resubmissions.getOrDefault(payrollData.getEmployeeId(), 0);
+            if (existing != null) {
+                statsDelta.recordRemoved(existing);
+                resubmitted++;
+            }
+            PayrollRecord record = PayrollRecord.builder()
+                    .department(payrollData.getDepartment())
+                    .baseSalary(payrollData.getBaseSalary())
+                    .allowances(payrollData.getAllowances())
+                    .deductions(payrollData.getDeductions())
+                    .netSalary(payrollData.getNetSalary())
+                    .payrollDate(payrollDate)
+                    .status("PROCESSED")
+                    .build();
+            statsDelta.recordAdded(record);
+            if (resubmitted > 0) {
+                statsDelta.recordResubmitted(record, resubmitted);
+            }
+        }
+        payrollBatchRepository.upsertPayrollRecords(records, payrollDate, "PROCESSED", nextReceivedAt());
+        payrollStatsService.apply(statsDelta);
+        employeeLookupService.invalidateAfterWrite(List.copyOf(latestByEmployee.keySet()));
+        payrollColumnStore.applyAfterCommit(payrollDate, "PROCESSED", records);
+        eventPublisher.publishEvent(new PayrollWrittenEvent(batch));
+        bumpVersionAfterCommit(payrollDate);
+        
+        log.debug("[CONSUMER] 💾 Batch upsert: {} new employees, {} updated employees, {} unchanged employees, {} payroll records",
+                newEmployees.size(), updatedEmployees.size(), latestByEmployee.size() - changedEmployees.size(), records.size());
     }
     
-    private Employee saveOrUpdateEmployee(PayrollData payrollData) {
+    // Exactly-once mode: the batch and the Kafka offsets it covers commit together, so a poll is either written
+    // with its offsets or not at all, and the listener resumes from the stored offsets after a crash or rebalance
+    @Transactional
+    public void processPayrollBatch(List<PayrollData> batch, String consumerGroup, List<PartitionOffsets> offsets) {
+        if (!batch.isEmpty()) {
+            processPayrollBatch(batch);
+        }
+        consumerOffsetRepository.advance(consumerGroup, offsets);
+    }
+    
+    // The cache only knows the writes of this instance, while a retry tier on another one may have written the
+    // employee since. So its hits are checked against the stored fingerprints, read under the employee row locks
+    // taken before the payroll record's (as the retry path does), so no retry can commit in between. Returns the
+    // employees whose stored fingerprint differs after all.
+    private Set<String> confirmUnchanged(Map<String, Long> cachedFingerprints) {
+        if (cachedFingerprints.isEmpty()) {
+            return Set.of();
+        }
+        Map<String, Long> stored = payrollBatchRepository.lockEmployeeFingerprints(cachedFingerprints.keySet());
+        Set<String> changed = new HashSet<>();
+        cachedFingerprints.forEach((employeeId, fingerprint) -> {
+            if (!fingerprint.equals(stored.get(employeeId))) {
+                changed.add(employeeId);
+            }
+        });
+        if (!changed.isEmpty()) {
+            log.info("[CONSUMER] 🔑 Employees {} were written elsewhere since their fingerprints were cached", changed);
+        }
+        return changed;
+    }
+    
+    private Employee saveOrUpdateEmployee(PayrollData payrollData, long fingerprint, PayrollStatsDelta statsDelta,
+                                          boolean logRecord) {
         Employee employee = employeeRepository.findByEmployeeId(payrollData.getEmployeeId())
                 .orElse(new Employee());
         
+        if (employee.getId() == null) {
+            statsDelta.employeeAdded(payrollData.getDepartment());
+        } else {
+            statsDelta.employeeMoved(employee.getDepartment(), payrollData.getDepartment());
+        }
+        
         employee.setEmployeeId(payrollData.getEmployeeId());
         employee.setFirstName(payrollData.getFirstName());
         employee.setLastName(payrollData.getLastName());
@@ -47,14 +288,18 @@ public class PayrollService {
         employee.setAllowances(payrollData.getAllowances());
         employee.setDeductions(payrollData.getDeductions());
         employee.setNetSalary(payrollData.getNetSalary());
+        employee.setFingerprint(fingerprint);
         
         employee = employeeRepository.save(employee);
-        log.info("[CONSUMER] 💾 Saved/Updated employee: {} {}", employee.getFirstName(), employee.getLastName());
+        if (logRecord) {
+            log.info("[CONSUMER] 💾 Saved/Updated employee: {} {}", employee.getFirstName(), employee.getLastName());
+        }
         
         return employee;
     }
     
-    private void createPayrollRecord(PayrollData payrollData) {
+    private PayrollRecord createPayrollRecord(PayrollData payrollData, long receivedAt,
+                                              PayrollStatsDelta statsDelta, boolean logRecord) {
         LocalDate payrollDate = LocalDate.now();
         
         // Check if payroll record already exists for this employee and date (idempotent)
@@ -66,6 +311,12 @@ public class PayrollService {
                         .payrollDate(payrollDate)
                         .build());
         
+        // Take the old values out of the rollups before they are overwritten
+        boolean resubmitted = record.getId() != null;
+        if (resubmitted) {
+            statsDelta.recordRemoved(record);
+        }
+        
         // Update fields (idempotent - can be run multiple times safely)
         record.setDepartment(payrollData.getDepartment());
         record.setBaseSalary(payrollData.getBaseSalary());
@@ -73,9 +324,22 @@ public class PayrollService {
         record.setDeductions(payrollData.getDeductions());
         record.setNetSalary(payrollData.getNetSalary());
         record.setStatus("PROCESSED");
+        record.setReceivedAt(receivedAt);
+        statsDelta.recordAdded(record);
+        if (resubmitted) {
+            statsDelta.recordResubmitted(record, 1);
+        }
+        if (PayrollStatsDelta.isAnomalous(record)) {
+            log.warn("[CONSUMER] ⚠️ Net salary {} for Employee ID: {} does not match base + allowances - deductions",
+                    record.getNetSalary(), record.getEmployeeId());
+        }
         
         payrollRecordRepository.save(record);
-        log.info("[CONSUMER] 📝 Created/Updated payroll record for Employee ID: {} with net salary: {}", 
-                payrollData.getEmployeeId(), payrollData.getNetSalary());
+        if (logRecord) {
+            log.info("[CONSUMER] 📝 Created/Updated payroll record for Employee ID: {} with net salary: {}", 
+                    payrollData.getEmployeeId(), payrollData.getNetSalary());
+        }
+        
+        return record;
     }
 }
@@ -0,0 +1,129 @@
+package com.payroll.consumer.service;
+
+import com.payroll.common.dto.Money;
+import com.payroll.consumer.model.PayrollRecord;
+import com.payroll.consumer.model.PayrollRollup;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+// Rollup changes made by one transaction. Keys are sorted so every consumer
+// touches rollup rows in the same order, which keeps lock waits from turning into deadlocks.
+public class PayrollStatsDelta {
+    
+    private record RollupKey(LocalDate payrollDate, String department, String status) {
+    }
+    
+    private static final Comparator<RollupKey> KEY_ORDER = Comparator
+            .comparing(RollupKey::payrollDate)
+            .thenComparing(RollupKey::department)
+            .thenComparing(RollupKey::status);
+    
+    private final Map<String, Long> employeeCounts = new TreeMap<>();
+    private final Map<RollupKey, Totals> payrollTotals = new TreeMap<>(KEY_ORDER);
+    
+    public void employeeAdded(String department) {
+        employeeCounts.merge(department, 1L, Long::sum);
+    }
+    
+    public void employeeMoved(String fromDepartment, String toDepartment) {
+        if (!Objects.equals(fromDepartment, toDepartment)) {
+            employeeCounts.merge(fromDepartment, -1L, Long::sum);
+            employeeCounts.merge(toDepartment, 1L, Long::sum);
+        }
+    }
+    
+    public void recordAdded(PayrollRecord record) {
+        addRecord(record, 1);
+    }
+    
+    public void recordRemoved(PayrollRecord record) {
+        addRecord(record, -1);
+    }
+    
+    // The record replaced one already stored (or sent earlier in the same batch) for its employee and date
+    public void recordResubmitted(PayrollRecord record, int times) {
+        totalsFor(record).resubmittedCount += times;
+    }
+    
+    public static boolean isAnomalous(PayrollRecord record) {
+        if (record.getBaseSalary() == null || record.getNetSalary() == null) {
+            return false;
+        }
+        long expected = record.getBaseSalary().cents() + cents(record.getAllowances()) - cents(record.getDeductions());
+        return expected != record.getNetSalary().cents();
+    }
+    
+    public Map<String, Long> getEmployeeCounts() {
+        employeeCounts.values().removeIf(delta -> delta == 0);
+        return employeeCounts;
+    }
+    
+    public List<PayrollRollup> getPayrollTotals() {
+        return payrollTotals.entrySet().stream()
+                .filter(entry -> !entry.getValue().isZero())
+                .map(entry -> entry.getValue().toRollup(entry.getKey()))
+                .toList();
+    }
+    
+    public boolean isEmpty() {
+        return getEmployeeCounts().isEmpty() && payrollTotals.values().stream().allMatch(Totals::isZero);
+    }
+    
+    private void addRecord(PayrollRecord record, int sign) {
+        Totals totals = totalsFor(record);
+        totals.recordCount += sign;
+        if (isAnomalous(record)) {
+            totals.anomalyCount += sign;
+        }
+        totals.baseSalary = Math.addExact(totals.baseSalary, sign * cents(record.getBaseSalary()));
+        totals.allowances = Math.addExact(totals.allowances, sign * cents(record.getAllowances()));
+        totals.deductions = Math.addExact(totals.deductions, sign * cents(record.getDeductions()));
+        totals.netSalary = Math.addExact(totals.netSalary, sign * cents(record.getNetSalary()));
+    }
+    
+    private Totals totalsFor(PayrollRecord record) {
+        RollupKey key = new RollupKey(record.getPayrollDate(), record.getDepartment(), record.getStatus());
+        return payrollTotals.computeIfAbsent(key, k -> new Totals());
+    }
+    
+    private static long cents(Money amount) {
+        return amount == null ? 0 : amount.cents();
+    }
+    
+    // Amounts are summed in cents and only turned into BigDecimal once per rollup row
+    private static final class Totals {
+        long recordCount;
+        long resubmittedCount;
+        long anomalyCount;
+        long baseSalary;
+        long allowances;
+        long deductions;
+        long netSalary;
+        
+        boolean isZero() {
+            return recordCount == 0 && resubmittedCount == 0 && anomalyCount == 0
+                    && baseSalary == 0 && allowances == 0 && deductions == 0 && netSalary == 0;
+        }
+        
+        PayrollRollup toRollup(RollupKey key) {
+            return PayrollRollup.builder()
+                    .payrollDate(key.payrollDate())
+                    .department(key.department())
+                    .status(key.status())
+                    .recordCount(recordCount)
+                    .resubmittedCount(resubmittedCount)
+                    .anomalyCount(anomalyCount)
+                    .totalBaseSalary(BigDecimal.valueOf(baseSalary, Money.SCALE))
+                    .totalAllowances(BigDecimal.valueOf(allowances, Money.SCALE))
+                    .totalDeductions(BigDecimal.valueOf(deductions, Money.SCALE))
+                    .totalNetSalary(BigDecimal.valueOf(netSalary, Money.SCALE))
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.payroll.consumer.service;
+
+import com.payroll.consumer.dto.DepartmentTotals;
+import com.payroll.consumer.dto.RollupCounts;
+import com.payroll.consumer.model.DepartmentStats;
+import com.payroll.consumer.model.PayrollRollup;
+import com.payroll.consumer.repository.DepartmentStatsRepository;
+import com.payroll.consumer.repository.EmployeeRepository;
+import com.payroll.consumer.repository.PayrollRollupRepository;
+import com.payroll.consumer.repository.StatsRollupRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Keeps department_stats and payroll_rollups in step with the base tables, so the
+// stats endpoints read a few small rollup rows instead of scanning employees and payroll_records
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PayrollStatsService {
+    
+    private final StatsRollupRepository statsRollupRepository;
+    private final DepartmentStatsRepository departmentStatsRepository;
+    private final PayrollRollupRepository payrollRollupRepository;
+    private final EmployeeRepository employeeRepository;
+    private final PayrollArchiveService payrollArchiveService;
+    
+    // Runs inside the caller's transaction, so rollups commit or roll back together with the data
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void apply(PayrollStatsDelta delta) {
+        if (delta.isEmpty()) {
+            return;
+        }
+        if (!delta.getEmployeeCounts().isEmpty()) {
+            statsRollupRepository.addEmployeeCounts(delta.getEmployeeCounts());
+        }
+        List<PayrollRollup> payrollTotals = delta.getPayrollTotals();
+        if (!payrollTotals.isEmpty()) {
+            statsRollupRepository.addPayrollTotals(payrollTotals);
+        }
+    }
+    
+    @Transactional
+    public void rebuild() {
+        long startNanos = System.nanoTime();
+        statsRollupRepository.rebuild(payrollArchiveService.archivedMonths());
+        log.info("[CONSUMER] 📊 Rebuilt statistics rollups in {} ms", (System.nanoTime() - startNanos) / 1_000_000);
+    }
+    
+    // First start on an existing database: seed the rollups from the base tables
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void rebuildIfEmpty() {
+        if (departmentStatsRepository.count() == 0 && employeeRepository.count() > 0) {
+            log.info("[CONSUMER] 📊 Statistics rollups are empty, rebuilding from base tables");
+            statsRollupRepository.rebuild(payrollArchiveService.archivedMonths());
+        }
+    }
+    
+    @Transactional(readOnly = true)
+    public Map<String, Object> getSummary() {
+        Map<String, Long> employeesByDepartment = new TreeMap<>();
+        long totalEmployees = 0;
+        for (DepartmentStats stats : departmentStatsRepository.findAll()) {
+            if (stats.getEmployeeCount() > 0) {
+                employeesByDepartment.put(stats.getDepartment(), stats.getEmployeeCount());
+                totalEmployees += stats.getEmployeeCount();
+            }
+        }
+        
+        RollupCounts counts = payrollRollupRepository.sumCounts();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("totalEmployees", totalEmployees);
+        summary.put("totalPayrollRecords", counts.getRecordCount());
+        summary.put("resubmittedRecords", counts.getResubmittedCount());
+        summary.put("anomalousRecords", counts.getAnomalyCount());
+        summary.put("employeesByDepartment", employeesByDepartment);
+        return summary;
+    }
+    
+    @Transactional(readOnly = true)
+    public RollupCounts getCounts(LocalDate from, LocalDate to) {
+        return payrollRollupRepository.sumCounts(from, to);
+    }
+    
+    @Transactional(readOnly = true)
+    public List<PayrollRollup> getPayrollTotals(LocalDate from, LocalDate to) {
+        return payrollRollupRepository
+                .findByPayrollDateBetweenAndRecordCountGreaterThanOrderByPayrollDateAscDepartmentAscStatusAsc(from, to, 0);
+    }
+    
+    @Transactional(readOnly = true)
+    public List<DepartmentTotals> getDepartmentTotals(LocalDate from, LocalDate to) {
+        return payrollRollupRepository.sumByDepartment(from, to);
+    }
+}
@@ -0,0 +1,10 @@
+package com.payroll.consumer.service;
+
+import com.payroll.common.dto.PayrollData;
+
+import java.util.List;
+
+// Published by PayrollService inside the write transaction, with every input record it handled (superseded
+// in-batch duplicates included). Listen with @TransactionalEventListener to see only records that were committed.
+public record PayrollWrittenEvent(List<PayrollData> records) {
+}
@@ -0,0 +1,67 @@
+-- Schema as ddl-auto: update created it, so databases that predate the migrations pass through unchanged
+CREATE TABLE IF NOT EXISTS employees (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    employee_id VARCHAR(255) NOT NULL,
+    first_name VARCHAR(255) NOT NULL,
+    last_name VARCHAR(255) NOT NULL,
+    email VARCHAR(255) NOT NULL,
+    department VARCHAR(255) NOT NULL,
+    position VARCHAR(255) NOT NULL,
+    base_salary DECIMAL(15, 2) NOT NULL,
+    allowances DECIMAL(15, 2),
+    deductions DECIMAL(15, 2),
+    net_salary DECIMAL(15, 2),
+    fingerprint BIGINT,
+    created_at DATETIME(6) NOT NULL,
+    updated_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS payroll_records (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    employee_id VARCHAR(255) NOT NULL,
+    employee_name VARCHAR(255) NOT NULL,
+    department VARCHAR(255) NOT NULL,
+    base_salary DECIMAL(15, 2) NOT NULL,
+    allowances DECIMAL(15, 2),
+    deductions DECIMAL(15, 2),
+    net_salary DECIMAL(15, 2),
+    payroll_date DATE NOT NULL,
+    status VARCHAR(255) NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_employee_payroll_date UNIQUE (employee_id, payroll_date)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS payroll_rollups (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    payroll_date DATE NOT NULL,
+    department VARCHAR(255) NOT NULL,
+    status VARCHAR(255) NOT NULL,
+    record_count BIGINT NOT NULL,
+    resubmitted_count BIGINT NOT NULL,
+    anomaly_count BIGINT NOT NULL,
+    total_base_salary DECIMAL(19, 2) NOT NULL,
+    total_allowances DECIMAL(19, 2) NOT NULL,
+    total_deductions DECIMAL(19, 2) NOT NULL,
+    total_net_salary DECIMAL(19, 2) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_rollup_date_department_status UNIQUE (payroll_date, department, status)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS department_stats (
+    department VARCHAR(255) NOT NULL,
+    employee_count BIGINT NOT NULL,
+    PRIMARY KEY (department)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS consumer_offsets (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    consumer_group VARCHAR(255) NOT NULL,
+    topic VARCHAR(255) NOT NULL,
+    partition_id INTEGER NOT NULL,
+    next_offset BIGINT NOT NULL,
+    updated_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_consumer_offset_group_topic_partition UNIQUE (consumer_group, topic, partition_id)
+) ENGINE = InnoDB;
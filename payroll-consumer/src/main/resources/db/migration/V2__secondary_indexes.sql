@@ -0,0 +1,5 @@
+-- Every message looks its employee up by employee_id (not unique: see Employee)
+CREATE INDEX idx_employees_employee_id ON employees (employee_id);
+
+-- findByPayrollDate and the date-range queries; lookups by employee_id already use uk_employee_payroll_date
+CREATE INDEX idx_payroll_records_payroll_date ON payroll_records (payroll_date);
@@ -0,0 +1,9 @@
+-- Range partitions on payroll_date. MySQL wants the partitioning column in every unique key, so the primary key
+-- becomes (id, payroll_date); id stays AUTO_INCREMENT and unique on its own. Everything starts in p_future, which
+-- PayrollPartitionMaintenance splits into one partition per month (pYYYYMM) on startup and every night.
+ALTER TABLE payroll_records
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (id, payroll_date)
+    PARTITION BY RANGE COLUMNS (payroll_date) (
+        PARTITION p_future VALUES LESS THAN (MAXVALUE)
+    );
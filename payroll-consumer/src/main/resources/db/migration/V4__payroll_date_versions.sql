@@ -0,0 +1,7 @@
+-- Change counter per payroll date for the ETags of /api/payroll-records/date/{date} and /search?date=...
+CREATE TABLE payroll_date_versions (
+    payroll_date DATE NOT NULL,
+    version BIGINT NOT NULL,
+    updated_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (payroll_date)
+) ENGINE = InnoDB;
@@ -0,0 +1,4 @@
+-- When the main listener took in the data of each payroll record (epoch milliseconds). A record applied from a
+-- retry topic keeps the time of its first attempt, so a retry that newer data of the same employee has overtaken
+-- can be skipped.
+ALTER TABLE payroll_records ADD COLUMN received_at BIGINT NULL;
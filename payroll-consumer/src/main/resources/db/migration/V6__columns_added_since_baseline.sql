@@ -0,0 +1,29 @@
+-- Columns added to tables that ddl-auto: update may already have created before the migrations existed: V1 leaves
+-- an existing table as it is, so on such a database these columns are missing. Each one is added unless it is
+-- already there; MySQL 8.0 has no ADD COLUMN IF NOT EXISTS, hence the lookup in information_schema.
+
+-- Content fingerprint of the employee's master data (EmployeeFingerprintCache)
+SET @ddl = IF(EXISTS (SELECT 1 FROM information_schema.columns WHERE table_schema = DATABASE()
+                      AND table_name = 'employees' AND column_name = 'fingerprint'),
+        'DO 0',
+        'ALTER TABLE employees ADD COLUMN fingerprint BIGINT NULL');
+PREPARE add_column FROM @ddl;
+EXECUTE add_column;
+DEALLOCATE PREPARE add_column;
+
+-- Resubmission and anomaly counts of the rollups, added after payroll_rollups itself
+SET @ddl = IF(EXISTS (SELECT 1 FROM information_schema.columns WHERE table_schema = DATABASE()
+                      AND table_name = 'payroll_rollups' AND column_name = 'resubmitted_count'),
+        'DO 0',
+        'ALTER TABLE payroll_rollups ADD COLUMN resubmitted_count BIGINT NOT NULL DEFAULT 0');
+PREPARE add_column FROM @ddl;
+EXECUTE add_column;
+DEALLOCATE PREPARE add_column;
+
+SET @ddl = IF(EXISTS (SELECT 1 FROM information_schema.columns WHERE table_schema = DATABASE()
+                      AND table_name = 'payroll_rollups' AND column_name = 'anomaly_count'),
+        'DO 0',
+        'ALTER TABLE payroll_rollups ADD COLUMN anomaly_count BIGINT NOT NULL DEFAULT 0');
+PREPARE add_column FROM @ddl;
+EXECUTE add_column;
+DEALLOCATE PREPARE add_column;
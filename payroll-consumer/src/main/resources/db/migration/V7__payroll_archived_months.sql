@@ -0,0 +1,9 @@
+-- Months PayrollPartitionMaintenance has archived, for every consumer instance to see: a month listed here is read
+-- from its file in payroll.archive.directory, not from payroll_records, and keeps its rollups on a rebuild
+CREATE TABLE payroll_archived_months (
+    archived_month DATE NOT NULL,
+    file_name VARCHAR(255) NOT NULL,
+    record_count BIGINT NOT NULL,
+    archived_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (archived_month)
+) ENGINE = InnoDB;
@@ -0,0 +1,7 @@
+-- Change counter per employee for the lookup caches of GET /api/employees/{employeeId} and its payroll records:
+-- every instance checks a cached entry against it, so a write on one instance is seen by all of them
+CREATE TABLE employee_versions (
+    employee_id VARCHAR(255) NOT NULL,
+    version BIGINT NOT NULL,
+    PRIMARY KEY (employee_id)
+) ENGINE = InnoDB;
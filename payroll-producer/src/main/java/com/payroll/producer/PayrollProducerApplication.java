@@ -1,11 +1,14 @@
 package com.payroll.producer;
 
+import com.payroll.common.logging.RecordLogSampler;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Import;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableScheduling
+@Import(RecordLogSampler.class)
 public class PayrollProducerApplication {
     public static void main(String[] args) {
         SpringApplication.run(PayrollProducerApplication.class, args);
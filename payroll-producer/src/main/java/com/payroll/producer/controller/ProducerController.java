@@ -1,5 +1,8 @@
 package com.payroll.producer.controller;
 
+import com.payroll.producer.kafka.ConsumerLagThrottle;
+import com.payroll.producer.kafka.SendRateLimiter;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -11,9 +14,13 @@ import java.util.Map;
 
 @RestController
 @RequestMapping("/api")
+@RequiredArgsConstructor
 @Slf4j
 public class ProducerController {
     
+    private final SendRateLimiter sendRateLimiter;
+    private final ConsumerLagThrottle consumerLagThrottle;
+    
     @GetMapping("/health")
     public ResponseEntity<Map<String, String>> health() {
         log.info("[PRODUCER] Health check endpoint called");
@@ -30,6 +37,12 @@ public class ProducerController {
         response.put("service", "Payroll Producer");
         response.put("status", "RUNNING");
         response.put("description", "CSV file processor and Kafka producer");
+        double rate = sendRateLimiter.getRate();
+        response.put("sendRateLimit", Double.isInfinite(rate) ? "unlimited" : Math.round(rate));
+        if (consumerLagThrottle.isEnabled()) {
+            response.put("consumerLag", consumerLagThrottle.getLastLag());
+            response.put("maxConsumerLag", consumerLagThrottle.getMaxLag());
+        }
         return ResponseEntity.ok(response);
     }
 }
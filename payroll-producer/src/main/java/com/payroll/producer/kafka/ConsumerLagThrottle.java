@@ -0,0 +1,164 @@
+package com.payroll.producer.kafka;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Keeps the consumer group's lag on the payroll topic under max-lag by steering the send rate of
+// SendRateLimiter. The lag reading is smoothed, and each check moves the rate by a bounded factor towards
+// the point where lag settles at TARGET_FRACTION of max-lag, so the rate ramps instead of flapping.
+// Lag and max-lag are in records: Kafka counts messages, so in envelope mode the message lag is scaled by the
+// envelope size (an estimate on the high side, the last envelope of a file may be partly filled).
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ConsumerLagThrottle {
+    
+    private static final double TARGET_FRACTION = 0.75;
+    private static final double LAG_SMOOTHING = 0.3;
+    private static final double GAIN = 0.25;
+    private static final double MIN_FACTOR = 0.5;
+    private static final double MAX_FACTOR = 1.25;
+    private static final long ADMIN_TIMEOUT_MS = 5000;
+    
+    private final KafkaAdmin kafkaAdmin;
+    private final PayrollProducer payrollProducer;
+    private final SendRateLimiter sendRateLimiter;
+    private final MeterRegistry meterRegistry;
+    
+    @Value("${spring.kafka.topic.payroll-data}")
+    private String topicName;
+    
+    @Value("${payroll.throttle.enabled:false}")
+    private boolean enabled;
+    
+    @Value("${payroll.throttle.consumer-group:payroll-consumer-group}")
+    private String consumerGroup;
+    
+    @Value("${payroll.throttle.max-lag:200000}")
+    private long maxLag;
+    
+    @Value("${payroll.throttle.min-rate:200}")
+    private double minRate;
+    
+    @Value("${payroll.throttle.max-rate:50000}")
+    private double maxRate;
+    
+    private AdminClient adminClient;
+    private volatile long lastLag = -1;
+    private double smoothedLag = -1;
+    
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+        adminClient = AdminClient.create(kafkaAdmin.getConfigurationProperties());
+        sendRateLimiter.setRate(maxRate);
+        Gauge.builder("payroll.producer.rate.limit", sendRateLimiter, SendRateLimiter::getRate)
+                .description("Records per second the producer may send")
+                .register(meterRegistry);
+        Gauge.builder("payroll.producer.consumer.lag", this, throttle -> throttle.lastLag)
+                .description("Lag of the consumer group on the payroll topic in records, as last read by the producer")
+                .register(meterRegistry);
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        if (adminClient != null) {
+            adminClient.close();
+        }
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public long getLastLag() {
+        return lastLag;
+    }
+    
+    public long getMaxLag() {
+        return maxLag;
+    }
+    
+    @Scheduled(fixedDelayString = "${payroll.throttle.check-interval-ms:5000}")
+    public void adjustRate() {
+        if (!enabled) {
+            return;
+        }
+        long lag;
+        try {
+            lag = readLag();
+        } catch (Exception e) {
+            // Rate stays where it is until the lag can be read again
+            log.warn("[PRODUCER] ⚠️ Could not read lag of consumer group {}: {}", consumerGroup, e.getMessage());
+            return;
+        }
+        lastLag = lag;
+        smoothedLag = smoothedLag < 0 ? lag : LAG_SMOOTHING * lag + (1 - LAG_SMOOTHING) * smoothedLag;
+        
+        double targetLag = TARGET_FRACTION * maxLag;
+        double factor = Math.max(MIN_FACTOR, Math.min(MAX_FACTOR, 1 + GAIN * (targetLag - smoothedLag) / targetLag));
+        double rate = sendRateLimiter.getRate();
+        double newRate = Math.max(minRate, Math.min(maxRate, rate * factor));
+        sendRateLimiter.setRate(newRate);
+        
+        if (Math.abs(newRate - rate) >= 0.1 * rate) {
+            log.info("[PRODUCER] 🚦 Consumer lag {} (bound {}), send rate {} -> {} records/s",
+                    lag, maxLag, Math.round(rate), Math.round(newRate));
+        }
+    }
+    
+    // Sum over the topic's partitions of log-end offset minus the group's committed offset
+    // (or the log-start offset for a partition the group has not committed yet), converted to records
+    private long readLag() throws Exception {
+        List<TopicPartition> partitions = adminClient.describeTopics(List.of(topicName)).allTopicNames()
+                .get(ADMIN_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                .get(topicName).partitions().stream()
+                .map(info -> new TopicPartition(topicName, info.partition()))
+                .toList();
+        Map<TopicPartition, OffsetAndMetadata> committed = adminClient.listConsumerGroupOffsets(consumerGroup)
+                .partitionsToOffsetAndMetadata()
+                .get(ADMIN_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        
+        Map<TopicPartition, OffsetSpec> latest = new HashMap<>();
+        Map<TopicPartition, OffsetSpec> earliest = new HashMap<>();
+        for (TopicPartition partition : partitions) {
+            latest.put(partition, OffsetSpec.latest());
+            if (committed.get(partition) == null) {
+                earliest.put(partition, OffsetSpec.earliest());
+            }
+        }
+        Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> endOffsets = adminClient.listOffsets(latest).all()
+                .get(ADMIN_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> startOffsets = earliest.isEmpty()
+                ? Map.of()
+                : adminClient.listOffsets(earliest).all().get(ADMIN_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        
+        long lag = 0;
+        for (TopicPartition partition : partitions) {
+            OffsetAndMetadata offset = committed.get(partition);
+            long position = offset != null ? offset.offset() : startOffsets.get(partition).offset();
+            lag += Math.max(0, endOffsets.get(partition).offset() - position);
+        }
+        return payrollProducer.isEnvelopeMode() ? lag * payrollProducer.getEnvelopeSize() : lag;
+    }
+}
@@ -0,0 +1,247 @@
+package com.payroll.producer.kafka;
+
+import com.payroll.common.dto.PayrollData;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Tracks every send of one CSV file until Kafka acks it. Sends are pipelined; the checkpoint is the
+// highest line number below which every sent record has been acked, so a retry never needs the whole file.
+// In envelope mode records are grouped per target partition and sent N at a time as one message.
+// The records of one employee reach the consumer in line order, resends included: after a record has failed,
+// later records of its employee are held back and re-sent behind it, and a failed record that a later line of
+// the same employee has already overtaken is dropped instead of re-sent (the consumer keeps the last one anyway).
+@Slf4j
+public class FileSendSession {
+    
+    private final PayrollProducer payrollProducer;
+    private final String fileName;
+    
+    // Line numbers sent but not yet acked (failed records stay here until a resend succeeds)
+    private final NavigableSet<Integer> unacked = new ConcurrentSkipListSet<>();
+    private final AtomicInteger acked = new AtomicInteger();
+    private final AtomicInteger failures = new AtomicInteger();
+    private final AtomicInteger overtaken = new AtomicInteger();
+    
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition allCompleted = lock.newCondition();
+    private int outstanding;
+    
+    // Employees with records on their way, and employees with a failed record waiting for a resend together with
+    // the later records held back behind it (both guarded by lock)
+    private final Map<String, PendingRecords> pending = new HashMap<>();
+    private final Map<String, NavigableMap<Integer, PayrollData>> held = new HashMap<>();
+    
+    // Envelopes being filled, by partition (only touched by the sending thread)
+    private final Map<Integer, List<PayrollData>> openEnvelopes = new HashMap<>();
+    
+    private volatile int lastSentLine;
+    private int sent;
+    
+    FileSendSession(PayrollProducer payrollProducer, String fileName) {
+        this.payrollProducer = payrollProducer;
+        this.fileName = fileName;
+    }
+    
+    public void send(PayrollData payrollData) {
+        unacked.add(payrollData.getLineNumber());
+        lastSentLine = Math.max(lastSentLine, payrollData.getLineNumber());
+        sent++;
+        if (admit(payrollData)) {
+            route(payrollData);
+        }
+    }
+    
+    // Registers the record as on its way (a record waiting in an open envelope counts), unless its employee has a
+    // failed record waiting, in which case the record joins the ones held back. Checked and registered under one
+    // lock, so a failure cannot slip in between.
+    private boolean admit(PayrollData payrollData) {
+        lock.lock();
+        try {
+            NavigableMap<Integer, PayrollData> waiting = held.get(payrollData.getEmployeeId());
+            if (waiting != null) {
+                waiting.put(payrollData.getLineNumber(), payrollData);
+                return false;
+            }
+            pending.computeIfAbsent(payrollData.getEmployeeId(), employeeId -> new PendingRecords())
+                    .add(payrollData.getLineNumber());
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private void route(PayrollData payrollData) {
+        if (!payrollProducer.isEnvelopeMode()) {
+            dispatch(List.of(payrollData));
+            return;
+        }
+        
+        int partition = payrollProducer.partitionFor(payrollData.getEmployeeId());
+        List<PayrollData> envelope = openEnvelopes.computeIfAbsent(partition, p -> new ArrayList<>());
+        envelope.add(payrollData);
+        if (envelope.size() >= payrollProducer.getEnvelopeSize()) {
+            openEnvelopes.remove(partition);
+            dispatch(envelope);
+        }
+    }
+    
+    private void flush() {
+        openEnvelopes.values().forEach(this::dispatch);
+        openEnvelopes.clear();
+    }
+    
+    private void dispatch(List<PayrollData> records) {
+        lock.lock();
+        try {
+            outstanding++;
+        } finally {
+            lock.unlock();
+        }
+        
+        try {
+            CompletableFuture<?> future = records.size() == 1 && !payrollProducer.isEnvelopeMode()
+                    ? payrollProducer.send(records.get(0))
+                    : payrollProducer.sendEnvelope(records);
+            future.whenComplete((result, ex) -> onComplete(records, ex));
+        } catch (RuntimeException e) {
+            onComplete(records, e);
+        }
+    }
+    
+    private void onComplete(List<PayrollData> records, Throwable ex) {
+        if (ex != null) {
+            failures.addAndGet(records.size());
+        }
+        
+        lock.lock();
+        try {
+            // A failed envelope is taken apart: each record is held or dropped on its own, and the held ones
+            // are grouped into new envelopes when they are re-sent
+            records.forEach(payrollData -> complete(payrollData, ex == null));
+            if (--outstanding == 0) {
+                allCompleted.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    // Called under lock
+    private void complete(PayrollData payrollData, boolean ack) {
+        String employeeId = payrollData.getEmployeeId();
+        PendingRecords records = pending.get(employeeId);
+        boolean overtakenByLaterLine = records.lastLine > payrollData.getLineNumber();
+        if (--records.count == 0) {
+            pending.remove(employeeId);
+        }
+        
+        if (ack) {
+            unacked.remove(payrollData.getLineNumber());
+            acked.incrementAndGet();
+        } else if (overtakenByLaterLine) {
+            // A later record of this employee is already on its way, re-sending this one would overwrite it
+            unacked.remove(payrollData.getLineNumber());
+            overtaken.incrementAndGet();
+            log.debug("[PRODUCER] ⏭️ Not re-sending line {} of file {}: Employee ID {} has line {} on its way",
+                    payrollData.getLineNumber(), fileName, employeeId, records.lastLine);
+        } else {
+            held.computeIfAbsent(employeeId, id -> new TreeMap<>()).put(payrollData.getLineNumber(), payrollData);
+        }
+    }
+    
+    // Waits for every ack, re-sending failed records up to maxResends rounds; true once all records are acked
+    public boolean awaitAllAcked(int maxResends) throws InterruptedException {
+        flush();
+        awaitOutstanding();
+        
+        for (int attempt = 1; attempt <= maxResends; attempt++) {
+            List<PayrollData> retry = takeHeld();
+            if (retry.isEmpty()) {
+                break;
+            }
+            log.warn("[PRODUCER] 🔁 Re-sending {} failed or held records of file {} (attempt {}/{})",
+                    retry.size(), fileName, attempt, maxResends);
+            retry.forEach(this::route);
+            flush();
+            awaitOutstanding();
+        }
+        
+        return unacked.isEmpty();
+    }
+    
+    // Held records (each failed record and the later ones behind it) in line order per employee, registered as
+    // on their way again
+    private List<PayrollData> takeHeld() {
+        lock.lock();
+        try {
+            List<PayrollData> retry = new ArrayList<>();
+            for (NavigableMap<Integer, PayrollData> records : held.values()) {
+                for (PayrollData payrollData : records.values()) {
+                    pending.computeIfAbsent(payrollData.getEmployeeId(), employeeId -> new PendingRecords())
+                            .add(payrollData.getLineNumber());
+                    retry.add(payrollData);
+                }
+            }
+            held.clear();
+            return retry;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private void awaitOutstanding() throws InterruptedException {
+        lock.lock();
+        try {
+            while (outstanding > 0) {
+                allCompleted.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    public int checkpoint() {
+        Integer firstUnacked = unacked.ceiling(Integer.MIN_VALUE);
+        return firstUnacked == null ? lastSentLine : firstUnacked - 1;
+    }
+    
+    public int getSent() {
+        return sent;
+    }
+    
+    public int getAcked() {
+        return acked.get();
+    }
+    
+    public int getFailures() {
+        return failures.get();
+    }
+    
+    public int getOvertaken() {
+        return overtaken.get();
+    }
+    
+    // Records of one employee sent but not completed yet, and the highest line number among them
+    private static final class PendingRecords {
+        
+        private int count;
+        private int lastLine;
+        
+        private void add(int lineNumber) {
+            count++;
+            lastLine = Math.max(lastLine, lineNumber);
+        }
+    }
+}
@@ -1,14 +1,24 @@
 package com.payroll.producer.kafka;
 
-import com.payroll.producer.dto.PayrollData;
+import com.payroll.common.dto.PayrollData;
+import com.payroll.common.dto.PayrollEnvelope;
+import com.payroll.common.logging.RecordLogSampler;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.utils.Utils;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
 
 @Service
 @RequiredArgsConstructor
@@ -16,26 +26,144 @@ import java.util.concurrent.CompletableFuture;
 public class PayrollProducer {
     
     private final KafkaTemplate<String, PayrollData> kafkaTemplate;
+    private final KafkaTemplate<String, PayrollEnvelope> envelopeTemplate;
+    private final MeterRegistry meterRegistry;
+    private final RecordLogSampler recordLogSampler;
+    private final SendRateLimiter sendRateLimiter;
     
     @Value("${spring.kafka.topic.payroll-data}")
     private String topicName;
     
+    @Value("${payroll.producer.max-in-flight:10000}")
+    private int maxInFlight;
+    
+    @Value("${payroll.producer.envelope.enabled:false}")
+    private boolean envelopeMode;
+    
+    @Value("${payroll.producer.envelope.size:100}")
+    private int envelopeSize;
+    
+    private volatile int partitionCount;
+    
+    // Bounds the records handed to Kafka but not yet acked, so a fast reader cannot outrun the broker
+    private Semaphore inFlight;
+    
+    @PostConstruct
+    void init() {
+        inFlight = new Semaphore(maxInFlight);
+        // An envelope takes one permit per record, so it can never be larger than the window
+        envelopeSize = Math.min(envelopeSize, maxInFlight);
+        Gauge.builder("payroll.producer.in-flight", inFlight, permits -> maxInFlight - permits.availablePermits())
+                .description("Records sent but not yet acked")
+                .register(meterRegistry);
+    }
+    
+    public FileSendSession openSession(String fileName) {
+        return new FileSendSession(this, fileName);
+    }
+    
+    public boolean isEnvelopeMode() {
+        return envelopeMode;
+    }
+    
+    public int getEnvelopeSize() {
+        return envelopeSize;
+    }
+    
+    // Same partition Kafka's default partitioner picks for this key, so envelopes keep per-employee ordering
+    public int partitionFor(String employeeId) {
+        if (partitionCount == 0) {
+            partitionCount = kafkaTemplate.partitionsFor(topicName).size();
+        }
+        return Utils.toPositive(Utils.murmur2(employeeId.getBytes(StandardCharsets.UTF_8))) % partitionCount;
+    }
+    
+    // All records must belong to the same partition (see partitionFor); FileSendSession keeps them in line order
+    // per employee, also when a failed envelope is re-sent
+    CompletableFuture<SendResult<String, PayrollEnvelope>> sendEnvelope(List<PayrollData> records) {
+        acquire(records.size(), records.get(0).getEmployeeId());
+        
+        int partition = partitionFor(records.get(0).getEmployeeId());
+        log.debug("[PRODUCER] Sending envelope of {} records to Kafka topic: {} partition: {}", 
+                records.size(), topicName, partition);
+        
+        Timer.Sample sample = Timer.start(meterRegistry);
+        CompletableFuture<SendResult<String, PayrollEnvelope>> future;
+        try {
+            future = envelopeTemplate.send(topicName, partition, null, new PayrollEnvelope(records));
+        } catch (RuntimeException e) {
+            inFlight.release(records.size());
+            recordSend(sample, "envelope", records.size(), e);
+            throw e;
+        }
+        
+        return future.whenComplete((result, ex) -> {
+            inFlight.release(records.size());
+            recordSend(sample, "envelope", records.size(), ex);
+            if (ex != null) {
+                log.error("[PRODUCER] ❌ Failed to send envelope of {} records to Kafka, first Employee ID: {}", 
+                        records.size(), records.get(0).getEmployeeId(), ex);
+            } else if (recordLogSampler.isVerbose()) {
+                log.info("[PRODUCER] ✅ Successfully sent envelope of {} records to Kafka: Offset={}, Partition={}", 
+                        records.size(),
+                        result.getRecordMetadata().offset(),
+                        result.getRecordMetadata().partition());
+            }
+        });
+    }
+    
+    // Send-to-ack latency per message, and records acked or failed (an envelope counts all its records)
+    private void recordSend(Timer.Sample sample, String type, int records, Throwable ex) {
+        String outcome = ex == null ? "acked" : "failed";
+        sample.stop(meterRegistry.timer("payroll.producer.send", "type", type, "outcome", outcome));
+        meterRegistry.counter("payroll.producer.records", "type", type, "outcome", outcome).increment(records);
+    }
+    
+    // Rate limit first, so records held back by the throttle do not occupy the in-flight window
+    private void acquire(int permits, String employeeId) {
+        try {
+            sendRateLimiter.acquire(permits);
+            inFlight.acquire(permits);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to send Employee ID: " + employeeId, e);
+        }
+    }
+    
     public void sendPayrollData(PayrollData payrollData) {
-        log.info("[PRODUCER] Sending payroll data to Kafka topic: {} for employee: {}", 
-                topicName, payrollData.getEmployeeId());
+        send(payrollData);
+    }
+    
+    CompletableFuture<SendResult<String, PayrollData>> send(PayrollData payrollData) {
+        acquire(1, payrollData.getEmployeeId());
+        
+        boolean logRecord = recordLogSampler.sample(payrollData.getEmployeeId());
+        if (logRecord) {
+            log.info("[PRODUCER] Sending payroll data to Kafka topic: {} for employee: {}", 
+                    topicName, payrollData.getEmployeeId());
+        }
         
-        CompletableFuture<SendResult<String, PayrollData>> future = 
-                kafkaTemplate.send(topicName, payrollData.getEmployeeId(), payrollData);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        CompletableFuture<SendResult<String, PayrollData>> future;
+        try {
+            future = kafkaTemplate.send(topicName, payrollData.getEmployeeId(), payrollData);
+        } catch (RuntimeException e) {
+            inFlight.release();
+            recordSend(sample, "record", 1, e);
+            throw e;
+        }
         
-        future.whenComplete((result, ex) -> {
-            if (ex == null) {
+        return future.whenComplete((result, ex) -> {
+            inFlight.release();
+            recordSend(sample, "record", 1, ex);
+            if (ex != null) {
+                log.error("[PRODUCER] ❌ Failed to send message to Kafka for Employee ID: {}", 
+                        payrollData.getEmployeeId(), ex);
+            } else if (logRecord) {
                 log.info("[PRODUCER] ✅ Successfully sent message to Kafka: Employee ID={}, Offset={}, Partition={}", 
                         payrollData.getEmployeeId(),
                         result.getRecordMetadata().offset(),
                         result.getRecordMetadata().partition());
-            } else {
-                log.error("[PRODUCER] ❌ Failed to send message to Kafka for Employee ID: {}", 
-                        payrollData.getEmployeeId(), ex);
             }
         });
     }
@@ -0,0 +1,66 @@
+package com.payroll.producer.kafka;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Token bucket in front of every send, refilled at the rate set by ConsumerLagThrottle (unlimited until then).
+// A caller takes its permits straight away, going into debt if needed, and sleeps until the debt is paid off,
+// so concurrent file threads share the rate fairly. The bucket holds at most one second of permits.
+@Component
+public class SendRateLimiter {
+    
+    private final ReentrantLock lock = new ReentrantLock();
+    private double ratePerSecond = Double.POSITIVE_INFINITY;
+    private double tokens;
+    private long lastRefillNanos = System.nanoTime();
+    
+    public void acquire(int permits) throws InterruptedException {
+        long waitNanos;
+        lock.lock();
+        try {
+            if (Double.isInfinite(ratePerSecond)) {
+                return;
+            }
+            refill();
+            tokens -= permits;
+            waitNanos = tokens >= 0 ? 0 : (long) (-tokens / ratePerSecond * 1e9);
+        } finally {
+            lock.unlock();
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+    
+    public void setRate(double ratePerSecond) {
+        lock.lock();
+        try {
+            if (Double.isInfinite(this.ratePerSecond)) {
+                tokens = ratePerSecond;
+                lastRefillNanos = System.nanoTime();
+            } else {
+                refill();
+            }
+            this.ratePerSecond = ratePerSecond;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    public double getRate() {
+        lock.lock();
+        try {
+            return ratePerSecond;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(ratePerSecond, tokens + (now - lastRefillNanos) * ratePerSecond / 1e9);
+        lastRefillNanos = now;
+    }
+}
@@ -0,0 +1,101 @@
+package com.payroll.producer.scheduler;
+
+import com.payroll.producer.service.CsvFileProcessor;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+
+// Picks up CSV files as soon as they land in the input directory; PayrollScheduler remains as a fallback sweep
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "payroll.watcher.enabled", havingValue = "true")
+public class CsvFileWatcher {
+    
+    private final CsvFileProcessor csvFileProcessor;
+    
+    @Value("${payroll.csv.input-path}")
+    private String inputPath;
+    
+    private WatchService watchService;
+    private Thread watchThread;
+    
+    @PostConstruct
+    void start() throws IOException {
+        Path inputDir = Paths.get(inputPath);
+        Files.createDirectories(inputDir);
+        
+        watchService = inputDir.getFileSystem().newWatchService();
+        inputDir.register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        
+        watchThread = Thread.ofPlatform().daemon().name("csv-file-watcher").start(() -> watch(inputDir));
+        log.info("[PRODUCER] 👀 Watching {} for new CSV files", inputDir);
+        
+        // Files dropped while the service was down
+        submitAll(inputDir);
+    }
+    
+    @PreDestroy
+    void stop() throws IOException {
+        watchService.close();
+        watchThread.interrupt();
+    }
+    
+    private void watch(Path inputDir) {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    submitAll(inputDir);
+                    continue;
+                }
+                Path file = inputDir.resolve((Path) event.context());
+                String name = file.getFileName().toString();
+                
+                if (csvFileProcessor.isMarkerFile(file)) {
+                    csvFileProcessor.submit(csvFileProcessor.csvForMarker(file));
+                } else if (name.endsWith(".csv") && !csvFileProcessor.usesMarkerFiles()) {
+                    csvFileProcessor.submit(file);
+                }
+            }
+            
+            if (!key.reset()) {
+                log.error("[PRODUCER] ❌ Input directory {} is no longer accessible, watcher stopped", inputDir);
+                return;
+            }
+        }
+    }
+    
+    private void submitAll(Path inputDir) {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(inputDir, "*.csv")) {
+            for (Path file : stream) {
+                csvFileProcessor.submit(file);
+            }
+        } catch (IOException e) {
+            log.error("[PRODUCER] ❌ Error reading input directory", e);
+        }
+    }
+}
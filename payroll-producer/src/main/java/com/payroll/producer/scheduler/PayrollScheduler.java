@@ -1,9 +1,6 @@
 package com.payroll.producer.scheduler;
 
-import com.opencsv.exceptions.CsvException;
-import com.payroll.producer.dto.PayrollData;
-import com.payroll.producer.kafka.PayrollProducer;
-import com.payroll.producer.service.CsvReaderService;
+import com.payroll.producer.service.CsvFileProcessor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -16,7 +13,9 @@ import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Component
 @RequiredArgsConstructor
@@ -24,8 +23,7 @@ import java.util.List;
 @ConditionalOnProperty(name = "payroll.scheduler.enabled", havingValue = "true", matchIfMissing = true)
 public class PayrollScheduler {
     
-    private final CsvReaderService csvReaderService;
-    private final PayrollProducer payrollProducer;
+    private final CsvFileProcessor csvFileProcessor;
     
     @Value("${payroll.csv.input-path}")
     private String inputPath;
@@ -33,6 +31,7 @@ public class PayrollScheduler {
     @Value("${payroll.csv.processed-path}")
     private String processedPath;
     
+    // Fallback sweep; with payroll.watcher.enabled files are normally picked up as soon as they are written
     @Scheduled(cron = "${payroll.scheduler.cron}")
     public void processCsvFiles() {
         log.info("╔══════════════════════════════════════════════════════════════╗");
@@ -54,48 +53,34 @@ public class PayrollScheduler {
                 log.info("[PRODUCER] Created processed directory: {}", processedDir);
             }
             
-            // Process all CSV files in the input directory
+            // Process all CSV files in the input directory, several at a time
+            List<CompletableFuture<CsvFileProcessor.FileResult>> results = new ArrayList<>();
             try (DirectoryStream<Path> stream = Files.newDirectoryStream(inputDir, "*.csv")) {
-                int fileCount = 0;
-                int totalRecords = 0;
-                
                 for (Path file : stream) {
-                    try {
-                        log.info("[PRODUCER] 📂 Processing file: {}", file.getFileName());
-                        
-                        // Read CSV file
-                        List<PayrollData> payrollDataList = csvReaderService.readCsvFile(file);
-                        
-                        // Send each record to Kafka
-                        for (PayrollData payrollData : payrollDataList) {
-                            payrollProducer.sendPayrollData(payrollData);
-                            totalRecords++;
-                        }
-                        
-                        // Move file to processed directory
-                        csvReaderService.moveToProcessed(file, processedDir);
-                        
-                        fileCount++;
-                        log.info("[PRODUCER] ✅ Successfully processed file: {} with {} records", 
-                                file.getFileName(), payrollDataList.size());
-                        
-                    } catch (IOException | CsvException e) {
-                        log.error("[PRODUCER] ❌ Error processing file: {}", file.getFileName(), e);
-                    }
+                    results.add(csvFileProcessor.submit(file));
                 }
-                
-                if (fileCount > 0) {
-                    log.info("╔══════════════════════════════════════════════════════════════╗");
-                    log.info("║  [PRODUCER] ✅ Completed: {} files, {} records sent         ║", fileCount, totalRecords);
-                    log.info("╚══════════════════════════════════════════════════════════════╝");
-                } else {
-                    log.debug("[PRODUCER] No CSV files found in input directory");
-                }
-                
             } catch (IOException e) {
                 log.error("[PRODUCER] ❌ Error reading input directory", e);
             }
             
+            int fileCount = 0;
+            int totalRecords = 0;
+            for (CompletableFuture<CsvFileProcessor.FileResult> result : results) {
+                CsvFileProcessor.FileResult fileResult = result.join();
+                if (fileResult.processed()) {
+                    fileCount++;
+                    totalRecords += fileResult.records();
+                }
+            }
+            
+            if (fileCount > 0) {
+                log.info("╔══════════════════════════════════════════════════════════════╗");
+                log.info("║  [PRODUCER] ✅ Completed: {} files, {} records sent         ║", fileCount, totalRecords);
+                log.info("╚══════════════════════════════════════════════════════════════╝");
+            } else {
+                log.debug("[PRODUCER] No CSV files found in input directory");
+            }
+            
         } catch (Exception e) {
             log.error("[PRODUCER] ❌ Unexpected error in scheduled task", e);
         }
@@ -0,0 +1,202 @@
+package com.payroll.producer.service;
+
+import com.opencsv.exceptions.CsvException;
+import com.payroll.producer.kafka.FileSendSession;
+import com.payroll.producer.kafka.PayrollProducer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+// Runs CSV files through the pipeline on virtual threads, shared by the directory watcher and the cron sweep.
+// A file is claimed while it is being handled, so both triggers can fire for it without double sends.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CsvFileProcessor {
+    
+    private final CsvReaderService csvReaderService;
+    private final PayrollProducer payrollProducer;
+    private final MeterRegistry meterRegistry;
+    
+    @Value("${payroll.csv.processed-path}")
+    private String processedPath;
+    
+    @Value("${payroll.ingestion.max-concurrent-files:4}")
+    private int maxConcurrentFiles;
+    
+    @Value("${payroll.ingestion.stable-interval-ms:2000}")
+    private long stableIntervalMs;
+    
+    @Value("${payroll.producer.checkpoint-interval:10000}")
+    private int checkpointInterval;
+    
+    @Value("${payroll.producer.max-resends:3}")
+    private int maxResends;
+    
+    @Value("${payroll.ingestion.marker-suffix:}")
+    private String markerSuffix;
+    
+    private final Set<Path> claimedFiles = ConcurrentHashMap.newKeySet();
+    private ExecutorService executor;
+    private Semaphore fileSlots;
+    
+    public record FileResult(Path file, boolean processed, int records) {
+    }
+    
+    @PostConstruct
+    void init() {
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        fileSlots = new Semaphore(maxConcurrentFiles);
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+    
+    public boolean usesMarkerFiles() {
+        return !markerSuffix.isEmpty();
+    }
+    
+    public boolean isMarkerFile(Path file) {
+        return usesMarkerFiles() && file.getFileName().toString().endsWith(".csv" + markerSuffix);
+    }
+    
+    public Path csvForMarker(Path marker) {
+        String name = marker.getFileName().toString();
+        return marker.resolveSibling(name.substring(0, name.length() - markerSuffix.length()));
+    }
+    
+    public CompletableFuture<FileResult> submit(Path file) {
+        Path key = file.toAbsolutePath().normalize();
+        if (!claimedFiles.add(key)) {
+            return CompletableFuture.completedFuture(new FileResult(file, false, 0));
+        }
+        
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return process(file);
+            } finally {
+                claimedFiles.remove(key);
+            }
+        }, executor);
+    }
+    
+    private FileResult process(Path file) {
+        try {
+            if (!awaitFullyWritten(file)) {
+                return new FileResult(file, false, 0);
+            }
+            
+            fileSlots.acquire();
+            try {
+                // Another trigger may have finished this file while we were waiting
+                if (!Files.exists(file)) {
+                    return new FileResult(file, false, 0);
+                }
+                
+                Timer.Sample sample = Timer.start(meterRegistry);
+                FileResult result = sendFile(file);
+                // Whole file: parse, send and wait for the last ack
+                sample.stop(meterRegistry.timer("payroll.csv.file", "outcome", result.processed() ? "processed" : "incomplete"));
+                return result;
+            } finally {
+                fileSlots.release();
+            }
+            
+        } catch (IOException | CsvException e) {
+            log.error("[PRODUCER] ❌ Error processing file: {}", file.getFileName(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("[PRODUCER] Interrupted while processing file: {}", file.getFileName());
+        }
+        return new FileResult(file, false, 0);
+    }
+    
+    private FileResult sendFile(Path file) throws IOException, CsvException, InterruptedException {
+        int resumeAfterLine = csvReaderService.readCheckpoint(file);
+        if (resumeAfterLine > 0) {
+            log.info("[PRODUCER] 📂 Resuming file: {} after acked line {}", file.getFileName(), resumeAfterLine);
+        } else {
+            log.info("[PRODUCER] 📂 Processing file: {}", file.getFileName());
+        }
+        
+        // Sends are pipelined; the checkpoint is persisted now and then so a crash resumes close to where it stopped
+        FileSendSession session = payrollProducer.openSession(file.getFileName().toString());
+        int[] sinceCheckpoint = {0};
+        csvReaderService.streamCsvFile(file, payrollData -> {
+            if (payrollData.getLineNumber() <= resumeAfterLine) {
+                return;
+            }
+            session.send(payrollData);
+            if (++sinceCheckpoint[0] == checkpointInterval) {
+                sinceCheckpoint[0] = 0;
+                saveCheckpoint(file, session.checkpoint());
+            }
+        });
+        
+        if (!session.awaitAllAcked(maxResends)) {
+            saveCheckpoint(file, session.checkpoint());
+            log.error("[PRODUCER] ❌ File {} not completed: {} of {} records acked, will resume after line {}",
+                    file.getFileName(), session.getAcked(), session.getSent(), session.checkpoint());
+            return new FileResult(file, false, session.getAcked());
+        }
+        
+        // Move file to processed directory only once Kafka has acked every record
+        csvReaderService.moveToProcessed(file, Paths.get(processedPath));
+        csvReaderService.deleteCheckpoint(file);
+        if (usesMarkerFiles()) {
+            Files.deleteIfExists(file.resolveSibling(file.getFileName() + markerSuffix));
+        }
+        
+        log.info("[PRODUCER] ✅ Successfully processed file: {} with {} records ({} send failures recovered, "
+                + "{} failed records overtaken by a later line of the same employee)",
+                file.getFileName(), session.getSent(), session.getFailures(), session.getOvertaken());
+        return new FileResult(file, true, session.getSent());
+    }
+    
+    private void saveCheckpoint(Path file, int lineNumber) {
+        if (lineNumber <= 0) {
+            return;
+        }
+        try {
+            csvReaderService.writeCheckpoint(file, lineNumber);
+        } catch (IOException e) {
+            log.warn("[PRODUCER] Could not write checkpoint for file {}: {}", file.getFileName(), e.getMessage());
+        }
+    }
+    
+    // A file is complete once its marker exists, or (without markers) once its size stops changing
+    private boolean awaitFullyWritten(Path file) throws IOException, InterruptedException {
+        if (usesMarkerFiles()) {
+            return Files.exists(file.resolveSibling(file.getFileName() + markerSuffix));
+        }
+        
+        long previousSize = -1;
+        while (Files.exists(file)) {
+            long size = Files.size(file);
+            if (size == previousSize) {
+                return true;
+            }
+            previousSize = size;
+            Thread.sleep(stableIntervalMs);
+        }
+        return false;
+    }
+}
@@ -2,75 +2,144 @@ package com.payroll.producer.service;
 
 import com.opencsv.CSVReader;
 import com.opencsv.exceptions.CsvException;
-import com.payroll.producer.dto.PayrollData;
+import com.payroll.common.dto.Money;
+import com.payroll.common.dto.PayrollData;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.FileReader;
 import java.io.IOException;
-import java.math.BigDecimal;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class CsvReaderService {
     
+    private final ParallelCsvParser parallelCsvParser;
+    private final MeterRegistry meterRegistry;
+    
+    @Value("${payroll.csv.parse-mode:sequential}")
+    private String parseMode;
+    
     public List<PayrollData> readCsvFile(Path filePath) throws IOException, CsvException {
         List<PayrollData> payrollDataList = new ArrayList<>();
+        streamCsvFile(filePath, payrollDataList::add);
+        return payrollDataList;
+    }
+    
+    // Parses one row at a time and hands it to the sink, so memory does not grow with the file size
+    public int streamCsvFile(Path filePath, Consumer<PayrollData> sink) throws IOException, CsvException {
+        long startNanos = System.nanoTime();
+        int recordCount = "parallel".equals(parseMode)
+                ? parallelCsvParser.streamCsvFile(filePath, sink)
+                : readSequential(filePath, sink);
         
-        log.info("[PRODUCER] 📄 Reading CSV file: {}", filePath.getFileName());
+        // The sink is included, so a reader held back by Kafka backpressure shows up as a lower rate
+        long elapsedNanos = System.nanoTime() - startNanos;
+        meterRegistry.timer("payroll.csv.parse", "mode", parseMode).record(elapsedNanos, TimeUnit.NANOSECONDS);
+        meterRegistry.counter("payroll.csv.records", "mode", parseMode).increment(recordCount);
+        meterRegistry.summary("payroll.csv.parse.rate", "mode", parseMode)
+                .record(recordCount * 1e9 / Math.max(1, elapsedNanos));
+        return recordCount;
+    }
+    
+    private int readSequential(Path filePath, Consumer<PayrollData> sink) throws IOException, CsvException {
+        String fileName = filePath.getFileName().toString();
+        int recordCount = 0;
+        
+        log.info("[PRODUCER] 📄 Reading CSV file: {}", fileName);
         
         try (CSVReader reader = new CSVReader(new FileReader(filePath.toFile()))) {
-            List<String[]> records = reader.readAll();
+            // Skip header row (line 1)
+            String[] record = reader.readNext();
+            int lineNumber = 1;
             
-            // Skip header row (index 0)
-            for (int i = 1; i < records.size(); i++) {
-                String[] record = records.get(i);
+            while ((record = reader.readNext()) != null) {
+                lineNumber++;
                 
-                try {
-                    PayrollData payrollData = PayrollData.builder()
-                            .employeeId(record[0].trim())
-                            .firstName(record[1].trim())
-                            .lastName(record[2].trim())
-                            .email(record[3].trim())
-                            .department(record[4].trim())
-                            .position(record[5].trim())
-                            .baseSalary(new BigDecimal(record[6].trim()))
-                            .allowances(new BigDecimal(record[7].trim()))
-                            .deductions(new BigDecimal(record[8].trim()))
-                            .fileName(filePath.getFileName().toString())
-                            .lineNumber(i + 1)
-                            .build();
-                    
-                    // Calculate net salary
-                    BigDecimal netSalary = payrollData.getBaseSalary()
-                            .add(payrollData.getAllowances())
-                            .subtract(payrollData.getDeductions());
-                    payrollData.setNetSalary(netSalary);
-                    
-                    payrollDataList.add(payrollData);
-                    
-                    log.debug("[PRODUCER] Parsed payroll data for Employee ID: {} from line {}", 
-                            payrollData.getEmployeeId(), i + 1);
-                    
-                } catch (Exception e) {
-                    log.error("[PRODUCER] ❌ Error parsing CSV record at line {}: {}", i + 1, e.getMessage());
+                PayrollData payrollData = toPayrollData(record, fileName, lineNumber);
+                if (payrollData != null) {
+                    sink.accept(payrollData);
+                    recordCount++;
                 }
             }
             
-            log.info("[PRODUCER] ✅ Successfully read {} records from CSV file: {}", 
-                    payrollDataList.size(), filePath.getFileName());
+            log.info("[PRODUCER] ✅ Successfully read {} records from CSV file: {}", recordCount, fileName);
             
         } catch (IOException | CsvException e) {
-            log.error("[PRODUCER] ❌ Error reading CSV file: {}", filePath.getFileName(), e);
+            log.error("[PRODUCER] ❌ Error reading CSV file: {}", fileName, e);
             throw e;
         }
         
-        return payrollDataList;
+        return recordCount;
+    }
+    
+    // Returns null (after logging) when the row cannot be parsed
+    static PayrollData toPayrollData(String[] record, String fileName, int lineNumber) {
+        try {
+            PayrollData payrollData = PayrollData.builder()
+                    .employeeId(record[0].trim())
+                    .firstName(record[1].trim())
+                    .lastName(record[2].trim())
+                    .email(record[3].trim())
+                    .department(record[4].trim())
+                    .position(record[5].trim())
+                    .baseSalary(Money.parse(record[6]))
+                    .allowances(Money.parse(record[7]))
+                    .deductions(Money.parse(record[8]))
+                    .fileName(fileName)
+                    .lineNumber(lineNumber)
+                    .build();
+            
+            // Calculate net salary
+            Money netSalary = payrollData.getBaseSalary()
+                    .plus(payrollData.getAllowances())
+                    .minus(payrollData.getDeductions());
+            payrollData.setNetSalary(netSalary);
+            
+            log.debug("[PRODUCER] Parsed payroll data for Employee ID: {} from line {}", 
+                    payrollData.getEmployeeId(), lineNumber);
+            
+            return payrollData;
+            
+        } catch (Exception e) {
+            log.error("[PRODUCER] ❌ Error parsing CSV record at line {}: {}", lineNumber, e.getMessage());
+            return null;
+        }
+    }
+    
+    // Last line known to be acked by Kafka for a file that could not be completed, or 0 to start from the top
+    public int readCheckpoint(Path sourceFile) throws IOException {
+        Path checkpointFile = checkpointFile(sourceFile);
+        if (!Files.exists(checkpointFile)) {
+            return 0;
+        }
+        return Integer.parseInt(Files.readString(checkpointFile).trim());
+    }
+    
+    public void writeCheckpoint(Path sourceFile, int lineNumber) throws IOException {
+        Path checkpointFile = checkpointFile(sourceFile);
+        Path tempFile = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+        Files.writeString(tempFile, Integer.toString(lineNumber));
+        Files.move(tempFile, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    public void deleteCheckpoint(Path sourceFile) throws IOException {
+        Files.deleteIfExists(checkpointFile(sourceFile));
+    }
+    
+    private Path checkpointFile(Path sourceFile) {
+        return sourceFile.resolveSibling("." + sourceFile.getFileName() + ".checkpoint");
     }
     
     public void moveToProcessed(Path sourceFile, Path processedDir) throws IOException {
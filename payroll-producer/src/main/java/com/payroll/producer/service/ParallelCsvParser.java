@@ -0,0 +1,273 @@
+package com.payroll.producer.service;
+
+import com.payroll.common.dto.PayrollData;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+// Parses one large CSV file on all cores: the file is memory-mapped in newline-aligned chunks,
+// chunks are parsed on a fork-join pool and handed to the sink in file order. Parsed chunks wait for the sink,
+// so the records held in memory are capped by max-in-flight-records, whatever the number of cores.
+// Assumes quoted fields never contain line breaks (true for our payroll exports).
+@Component
+@Slf4j
+public class ParallelCsvParser {
+    
+    private static final byte NEWLINE = '\n';
+    private static final byte CARRIAGE_RETURN = '\r';
+    private static final byte SEPARATOR = ',';
+    private static final byte QUOTE = '"';
+    
+    @Value("${payroll.csv.parallel.chunk-size-mb:4}")
+    private int chunkSizeMb;
+    
+    @Value("${payroll.csv.parallel.max-in-flight-records:250000}")
+    private int maxInFlightRecords;
+    
+    @Value("${payroll.csv.parallel.parallelism:0}")
+    private int parallelism;
+    
+    private ForkJoinPool pool;
+    
+    @PostConstruct
+    void init() {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        pool = new ForkJoinPool(threads);
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        pool.shutdown();
+    }
+    
+    public int streamCsvFile(Path filePath, Consumer<PayrollData> sink) throws IOException {
+        String fileName = filePath.getFileName().toString();
+        int recordCount = 0;
+        
+        log.info("[PRODUCER] 📄 Reading CSV file in parallel: {}", fileName);
+        
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            long[] boundaries = chunkBoundaries(channel, (long) chunkSizeMb * 1024 * 1024);
+            int chunkCount = boundaries.length - 1;
+            
+            // Pass 1: count lines per chunk so every chunk knows the line number it starts at
+            List<ForkJoinTask<Integer>> counts = new ArrayList<>(chunkCount);
+            for (int i = 0; i < chunkCount; i++) {
+                long start = boundaries[i];
+                long end = boundaries[i + 1];
+                counts.add(pool.submit(() -> countLines(channel, start, end)));
+            }
+            int[] firstLine = new int[chunkCount];
+            int[] lines = new int[chunkCount];
+            int line = 1;
+            for (int i = 0; i < chunkCount; i++) {
+                firstLine[i] = line;
+                lines[i] = join(counts.get(i));
+                line += lines[i];
+            }
+            
+            // Pass 2: parse chunks in parallel and emit them in order. A chunk is only submitted while the lines of
+            // the chunks in flight stay within max-in-flight-records (one chunk is always let in), and never more
+            // than two per thread.
+            int maxChunks = pool.getParallelism() * 2;
+            Deque<ForkJoinTask<List<PayrollData>>> inFlight = new ArrayDeque<>(maxChunks);
+            long inFlightLines = 0;
+            int next = 0;
+            int oldest = 0;
+            while (next < chunkCount || !inFlight.isEmpty()) {
+                while (next < chunkCount && inFlight.size() < maxChunks
+                        && (inFlight.isEmpty() || inFlightLines + lines[next] <= maxInFlightRecords)) {
+                    long start = boundaries[next];
+                    long end = boundaries[next + 1];
+                    int startLine = firstLine[next];
+                    inFlight.add(pool.submit(() -> parseChunk(channel, start, end, startLine, fileName)));
+                    inFlightLines += lines[next];
+                    next++;
+                }
+                for (PayrollData payrollData : join(inFlight.poll())) {
+                    sink.accept(payrollData);
+                    recordCount++;
+                }
+                inFlightLines -= lines[oldest++];
+            }
+            
+            log.info("[PRODUCER] ✅ Successfully read {} records from CSV file: {} ({} chunks)",
+                    recordCount, fileName, chunkCount);
+            
+        } catch (IOException e) {
+            log.error("[PRODUCER] ❌ Error reading CSV file: {}", fileName, e);
+            throw e;
+        }
+        
+        return recordCount;
+    }
+    
+    // Chunk i covers [boundaries[i], boundaries[i + 1]); every boundary but the last is just past a newline
+    private static long[] chunkBoundaries(FileChannel channel, long chunkSize) throws IOException {
+        long size = channel.size();
+        List<Long> boundaries = new ArrayList<>();
+        boundaries.add(0L);
+        
+        ByteBuffer probe = ByteBuffer.allocate(64 * 1024);
+        long position = chunkSize;
+        while (position < size) {
+            long boundary = size;
+            long scan = position;
+            while (scan < size) {
+                probe.clear();
+                int read = channel.read(probe, scan);
+                if (read <= 0) {
+                    break;
+                }
+                int newline = indexOf(probe, read, NEWLINE);
+                if (newline >= 0) {
+                    boundary = scan + newline + 1;
+                    break;
+                }
+                scan += read;
+            }
+            if (boundary >= size) {
+                break;
+            }
+            boundaries.add(boundary);
+            position = boundary + chunkSize;
+        }
+        boundaries.add(size);
+        
+        return boundaries.stream().mapToLong(Long::longValue).toArray();
+    }
+    
+    private static int indexOf(ByteBuffer buffer, int length, byte value) {
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(i) == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    private static int countLines(FileChannel channel, long start, long end) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        int limit = buffer.limit();
+        int lines = 0;
+        for (int i = 0; i < limit; i++) {
+            if (buffer.get(i) == NEWLINE) {
+                lines++;
+            }
+        }
+        // A last line without a trailing newline still counts
+        if (limit > 0 && buffer.get(limit - 1) != NEWLINE) {
+            lines++;
+        }
+        return lines;
+    }
+    
+    private static List<PayrollData> parseChunk(FileChannel channel, long start, long end,
+                                                int startLine, String fileName) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        int limit = buffer.limit();
+        List<PayrollData> result = new ArrayList<>();
+        byte[] scratch = new byte[256];
+        List<String> fields = new ArrayList<>(12);
+        
+        int lineNumber = startLine;
+        int lineStart = 0;
+        while (lineStart < limit) {
+            int lineEnd = lineStart;
+            while (lineEnd < limit && buffer.get(lineEnd) != NEWLINE) {
+                lineEnd++;
+            }
+            
+            // Line 1 is the header
+            if (lineNumber > 1) {
+                int contentEnd = lineEnd;
+                if (contentEnd > lineStart && buffer.get(contentEnd - 1) == CARRIAGE_RETURN) {
+                    contentEnd--;
+                }
+                scratch = splitFields(buffer, lineStart, contentEnd, scratch, fields);
+                PayrollData payrollData = CsvReaderService.toPayrollData(
+                        fields.toArray(new String[0]), fileName, lineNumber);
+                if (payrollData != null) {
+                    result.add(payrollData);
+                }
+            }
+            
+            lineNumber++;
+            lineStart = lineEnd + 1;
+        }
+        return result;
+    }
+    
+    // Same field rules as CSVReader's defaults: comma separated, optional quotes, "" inside quotes is a quote
+    private static byte[] splitFields(MappedByteBuffer buffer, int start, int end, byte[] scratch, List<String> fields) {
+        fields.clear();
+        int position = start;
+        while (true) {
+            int length = 0;
+            boolean quoted = false;
+            while (position < end) {
+                byte b = buffer.get(position);
+                if (quoted) {
+                    if (b == QUOTE) {
+                        if (position + 1 < end && buffer.get(position + 1) == QUOTE) {
+                            position++;
+                        } else {
+                            quoted = false;
+                            position++;
+                            continue;
+                        }
+                    }
+                } else if (b == QUOTE) {
+                    quoted = true;
+                    position++;
+                    continue;
+                } else if (b == SEPARATOR) {
+                    break;
+                }
+                if (length == scratch.length) {
+                    scratch = Arrays.copyOf(scratch, length * 2);
+                }
+                scratch[length++] = b;
+                position++;
+            }
+            fields.add(new String(scratch, 0, length, StandardCharsets.UTF_8));
+            if (position >= end) {
+                return scratch;
+            }
+            position++; // skip separator
+        }
+    }
+    
+    private static <T> T join(ForkJoinTask<T> task) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while parsing CSV chunks", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException("Failed to parse CSV chunk", e.getCause());
+        }
+    }
+}